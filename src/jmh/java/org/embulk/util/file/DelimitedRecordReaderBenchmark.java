@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Each operation splits TOTAL_BYTES into lines through DelimitedRecordReader, or through a Reader over FileInputInputStream.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DelimitedRecordReaderBenchmark {
+    @Param({"4096", "32768"})
+    public int bufferSize;
+
+    @Param({"16", "256"})
+    public int recordLength;
+
+    @Setup
+    public void setup() {
+        this.contents = new byte[this.bufferSize];
+        for (int i = 0; i < this.contents.length; i++) {
+            this.contents[i] = (i % this.recordLength == this.recordLength - 1) ? (byte) '\n' : (byte) ('a' + i % 26);
+        }
+    }
+
+    @Benchmark
+    public long delimitedRecordReader() {
+        final DelimitedRecordReader reader = new DelimitedRecordReader(this.newFileInput());
+        long length = 0L;
+        while (reader.nextFile()) {
+            DelimitedRecordReader.Record record;
+            while ((record = reader.nextRecord()) != null) {
+                length += record.getLength();
+            }
+        }
+        reader.close();
+        return length;
+    }
+
+    @Benchmark
+    public long bufferedReader() throws IOException {
+        final FileInputInputStream in = new FileInputInputStream(this.newFileInput());
+        long length = 0L;
+        while (in.nextFile()) {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                length += line.length();
+            }
+        }
+        in.close();
+        return length;
+    }
+
+    private RepeatingFileInput newFileInput() {
+        return new RepeatingFileInput(this.contents, TOTAL_BYTES / this.bufferSize, 1);
+    }
+
+    private static final int TOTAL_BYTES = 4 * 1024 * 1024;
+
+    private byte[] contents;
+}
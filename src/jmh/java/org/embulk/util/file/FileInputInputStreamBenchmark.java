@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Each operation reads TOTAL_BYTES through FileInputInputStream.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileInputInputStreamBenchmark {
+    @Param({"4096", "32768", "131072"})
+    public int bufferSize;
+
+    @Param({"512", "8192"})
+    public int readSize;
+
+    @Setup
+    public void setup() {
+        this.contents = new byte[this.bufferSize];
+        for (int i = 0; i < this.contents.length; i++) {
+            this.contents[i] = (byte) i;
+        }
+        this.readArray = new byte[this.readSize];
+    }
+
+    @Benchmark
+    public long readSingleByte() {
+        final FileInputInputStream in = this.newInputStream();
+        long sum = 0L;
+        while (in.nextFile()) {
+            int b;
+            while ((b = in.read()) >= 0) {
+                sum += b;
+            }
+        }
+        in.close();
+        return sum;
+    }
+
+    @Benchmark
+    public void readBulk(final Blackhole blackhole) {
+        final FileInputInputStream in = this.newInputStream();
+        while (in.nextFile()) {
+            int n;
+            while ((n = in.read(this.readArray, 0, this.readArray.length)) >= 0) {
+                blackhole.consume(n);
+            }
+        }
+        blackhole.consume(this.readArray);
+        in.close();
+    }
+
+    @Benchmark
+    public long skip() {
+        final FileInputInputStream in = this.newInputStream();
+        long skipped = 0L;
+        while (in.nextFile()) {
+            long n;
+            while ((n = in.skip(this.readSize)) > 0) {
+                skipped += n;
+            }
+        }
+        in.close();
+        return skipped;
+    }
+
+    private FileInputInputStream newInputStream() {
+        return new FileInputInputStream(new RepeatingFileInput(this.contents, TOTAL_BYTES / this.bufferSize, 1));
+    }
+
+    private static final int TOTAL_BYTES = 4 * 1024 * 1024;
+
+    private byte[] contents;
+    private byte[] readArray;
+}
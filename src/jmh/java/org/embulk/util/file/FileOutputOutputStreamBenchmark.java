@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.concurrent.TimeUnit;
+import org.embulk.spi.BufferAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Each operation writes TOTAL_BYTES through FileOutputOutputStream, which allocates a Buffer for every flush.
+//
+// "allocatorType" is "heap" for a new array for every Buffer, or "pooling" for PoolingBufferAllocator over it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileOutputOutputStreamBenchmark {
+    @Param({"4096", "32768", "131072"})
+    public int bufferSize;
+
+    @Param({"100", "8192"})
+    public int writeSize;
+
+    @Param({"heap", "pooling"})
+    public String allocatorType;
+
+    @Setup
+    public void setup() {
+        if ("pooling".equals(this.allocatorType)) {
+            this.allocator = new PoolingBufferAllocator(new HeapBufferAllocator(this.bufferSize), 16);
+        } else {
+            this.allocator = new HeapBufferAllocator(this.bufferSize);
+        }
+        this.writeArray = new byte[this.writeSize];
+        for (int i = 0; i < this.writeArray.length; i++) {
+            this.writeArray[i] = (byte) i;
+        }
+    }
+
+    @Benchmark
+    public long writeSingleByte() {
+        final SinkFileOutput sink = new SinkFileOutput();
+        final FileOutputOutputStream out = new FileOutputOutputStream(sink, this.allocator, FileOutputOutputStream.CloseMode.FLUSH_FINISH_CLOSE);
+        out.nextFile();
+        for (int i = 0; i < TOTAL_BYTES; i++) {
+            out.write(i);
+        }
+        out.close();
+        return sink.getBytes();
+    }
+
+    @Benchmark
+    public long writeBulk() {
+        final SinkFileOutput sink = new SinkFileOutput();
+        final FileOutputOutputStream out = new FileOutputOutputStream(sink, this.allocator, FileOutputOutputStream.CloseMode.FLUSH_FINISH_CLOSE);
+        out.nextFile();
+        for (int written = 0; written < TOTAL_BYTES; written += this.writeArray.length) {
+            out.write(this.writeArray, 0, this.writeArray.length);
+        }
+        out.close();
+        return sink.getBytes();
+    }
+
+    private static final int TOTAL_BYTES = 4 * 1024 * 1024;
+
+    private BufferAllocator allocator;
+    private byte[] writeArray;
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import org.embulk.spi.Buffer;
+
+// A plain heap Buffer for benchmarks. Buffer.allocate(int) needs the implementation in embulk-core, which is not here.
+final class HeapBuffer extends Buffer {
+    HeapBuffer(final byte[] array, final boolean recyclable) {
+        this.array = array;
+        this.limit = 0;
+        this.recyclable = recyclable;
+    }
+
+    static HeapBuffer ofCapacity(final int capacity) {
+        return new HeapBuffer(new byte[capacity], false);
+    }
+
+    // Its contents survive release() so that benchmarks can hand out the same buffer repeatedly.
+    static HeapBuffer recyclable(final byte[] contents) {
+        final HeapBuffer buffer = new HeapBuffer(contents, true);
+        buffer.limit(contents.length);
+        return buffer;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public byte[] array() {
+        return this.array;
+    }
+
+    @Override
+    public int offset() {
+        return 0;
+    }
+
+    @Override
+    public Buffer offset(final int offset) {
+        if (offset != 0) {
+            throw new UnsupportedOperationException("HeapBuffer does not support a non-zero offset.");
+        }
+        return this;
+    }
+
+    @Override
+    public int limit() {
+        return this.limit;
+    }
+
+    @Override
+    public Buffer limit(final int limit) {
+        if (limit < 0 || limit > this.array.length) {
+            throw new IllegalArgumentException("Limit out of range: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    @Override
+    public int capacity() {
+        return this.array.length;
+    }
+
+    @Override
+    public void setBytes(final int index, final byte[] source, final int sourceIndex, final int length) {
+        System.arraycopy(source, sourceIndex, this.array, index, length);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void setBytes(final int index, final Buffer source, final int sourceIndex, final int length) {
+        System.arraycopy(source.array(), source.offset() + sourceIndex, this.array, index, length);
+    }
+
+    @Override
+    public void getBytes(final int index, final byte[] dest, final int destIndex, final int length) {
+        System.arraycopy(this.array, index, dest, destIndex, length);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void getBytes(final int index, final Buffer dest, final int destIndex, final int length) {
+        System.arraycopy(this.array, index, dest.array(), dest.offset() + destIndex, length);
+    }
+
+    @Override
+    public void release() {
+        if (this.recyclable) {
+            this.limit = this.array.length;
+        }
+    }
+
+    private int limit;
+
+    private final byte[] array;
+    private final boolean recyclable;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+
+// Allocates a new heap array every time, as Embulk's own allocator does when its pool is exhausted.
+final class HeapBufferAllocator implements BufferAllocator {
+    HeapBufferAllocator(final int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public Buffer allocate() {
+        return HeapBuffer.ofCapacity(this.pageSize);
+    }
+
+    @Override
+    public Buffer allocate(final int minimumCapacity) {
+        return HeapBuffer.ofCapacity(Math.max(this.pageSize, minimumCapacity));
+    }
+
+    private final int pageSize;
+}
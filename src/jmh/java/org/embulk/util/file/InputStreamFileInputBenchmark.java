@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.embulk.spi.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Each operation polls TOTAL_BYTES out of InputStreamFileInput, split into files of "fileSize" bytes.
+//
+// "maxReadLength" emulates upstream streams which return short reads, such as sockets (0 means unlimited).
+// "fill" is "single" for FillPolicy.singleRead(), or "capacity" for FillPolicy.toCapacity().
+// "sizing" is "fixed" for BufferSizing.fixed(), or "adaptive" for BufferSizing.adaptive() from "bufferSize" up to 1 MiB.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InputStreamFileInputBenchmark {
+    @Param({"4096", "32768", "131072"})
+    public int bufferSize;
+
+    @Param({"0", "1460"})
+    public int maxReadLength;
+
+    @Param({"1024", "4194304"})
+    public int fileSize;
+
+    @Param({"single", "capacity"})
+    public String fill;
+
+    @Param({"fixed", "adaptive"})
+    public String sizing;
+
+    @Setup
+    public void setup() {
+        this.allocator = new HeapBufferAllocator(this.bufferSize);
+        this.fillPolicy = "capacity".equals(this.fill)
+                ? InputStreamFileInput.FillPolicy.toCapacity()
+                : InputStreamFileInput.FillPolicy.singleRead();
+        this.bufferSizing = "adaptive".equals(this.sizing)
+                ? InputStreamFileInput.BufferSizing.adaptive(this.bufferSize, 1024 * 1024)
+                : InputStreamFileInput.BufferSizing.fixed();
+        this.source = new byte[64 * 1024];
+        for (int i = 0; i < this.source.length; i++) {
+            this.source[i] = (byte) i;
+        }
+    }
+
+    @Benchmark
+    public long poll() {
+        final InputStreamFileInput input = new InputStreamFileInput(
+                this.allocator, new SourceProvider(TOTAL_BYTES / this.fileSize), this.fillPolicy, this.bufferSizing);
+        long bytes = 0L;
+        while (input.nextFile()) {
+            Buffer buffer;
+            while ((buffer = input.poll()) != null) {
+                bytes += buffer.limit();
+                buffer.release();
+            }
+        }
+        input.close();
+        return bytes;
+    }
+
+    private class SourceProvider implements InputStreamFileInput.Provider {
+        SourceProvider(final int files) {
+            this.filesRemaining = files;
+        }
+
+        @Override
+        public InputStream openNext() {
+            if (this.filesRemaining <= 0) {
+                return null;
+            }
+            this.filesRemaining--;
+            return new ShortReadInputStream(source, fileSize, maxReadLength);
+        }
+
+        @Override
+        public void close() {}
+
+        private int filesRemaining;
+    }
+
+    private static final int TOTAL_BYTES = 4 * 1024 * 1024;
+
+    private HeapBufferAllocator allocator;
+    private InputStreamFileInput.FillPolicy fillPolicy;
+    private InputStreamFileInput.BufferSizing bufferSizing;
+    private byte[] source;
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.OutputStream;
+
+final class NullOutputStream extends OutputStream {
+    NullOutputStream() {
+        this.bytes = 0L;
+    }
+
+    @Override
+    public void write(final int b) {
+        this.bytes++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        this.bytes += len;
+    }
+
+    long getBytes() {
+        return this.bytes;
+    }
+
+    private long bytes;
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Each operation adds TOTAL_BYTES to OutputStreamFileOutput, split into files of "fileSize" bytes.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputStreamFileOutputBenchmark {
+    @Param({"512", "4096", "32768", "131072"})
+    public int bufferSize;
+
+    @Param({"131072", "4194304"})
+    public int fileSize;
+
+    @Setup
+    public void setup() {
+        final byte[] contents = new byte[this.bufferSize];
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = (byte) i;
+        }
+        this.buffer = HeapBuffer.recyclable(contents);
+    }
+
+    @Benchmark
+    public long add() {
+        final NullOutputStream sink = new NullOutputStream();
+        final OutputStreamFileOutput output = new OutputStreamFileOutput(new SinkProvider(sink));
+        final int buffersPerFile = Math.max(1, this.fileSize / this.bufferSize);
+        for (int written = 0; written < TOTAL_BYTES; written += buffersPerFile * this.bufferSize) {
+            output.nextFile();
+            for (int i = 0; i < buffersPerFile; i++) {
+                output.add(this.buffer);
+            }
+        }
+        output.finish();
+        output.close();
+        return sink.getBytes();
+    }
+
+    private static class SinkProvider implements OutputStreamFileOutput.Provider {
+        SinkProvider(final NullOutputStream sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public OutputStream openNext() {
+            return this.sink;
+        }
+
+        @Override
+        public void finish() {}
+
+        @Override
+        public void close() {}
+
+        private final NullOutputStream sink;
+    }
+
+    private static final int TOTAL_BYTES = 4 * 1024 * 1024;
+
+    private HeapBuffer buffer;
+}
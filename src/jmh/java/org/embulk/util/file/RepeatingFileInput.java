@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+
+// Hands out the same recyclable buffer again and again so that only the consumer of FileInput is measured.
+final class RepeatingFileInput implements FileInput {
+    RepeatingFileInput(final byte[] contents, final int buffersPerFile, final int files) {
+        this.buffer = HeapBuffer.recyclable(contents);
+        this.buffersPerFile = buffersPerFile;
+        this.filesRemaining = files;
+        this.buffersRemaining = 0;
+        this.opened = false;
+    }
+
+    @Override
+    public boolean nextFile() {
+        if (this.filesRemaining <= 0) {
+            return false;
+        }
+        this.filesRemaining--;
+        this.buffersRemaining = this.buffersPerFile;
+        this.opened = true;
+        return true;
+    }
+
+    @Override
+    public Buffer poll() {
+        if (!this.opened) {
+            throw new IllegalStateException("FileInput#nextFile() is not called.");
+        }
+        if (this.buffersRemaining <= 0) {
+            return null;
+        }
+        this.buffersRemaining--;
+        return this.buffer;
+    }
+
+    @Override
+    public void close() {}
+
+    private int filesRemaining;
+    private int buffersRemaining;
+    private boolean opened;
+
+    private final HeapBuffer buffer;
+    private final int buffersPerFile;
+}
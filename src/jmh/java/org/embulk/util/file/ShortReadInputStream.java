@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.InputStream;
+
+// An in-memory InputStream which returns at most "maxReadLength" bytes per read like a socket or a decompressor.
+final class ShortReadInputStream extends InputStream {
+    ShortReadInputStream(final byte[] source, final int length, final int maxReadLength) {
+        this.source = source;
+        this.length = length;
+        this.maxReadLength = maxReadLength > 0 ? maxReadLength : Integer.MAX_VALUE;
+        this.pos = 0;
+    }
+
+    @Override
+    public int read() {
+        if (this.pos >= this.length) {
+            return -1;
+        }
+        return this.source[this.pos++ % this.source.length] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+        if (this.pos >= this.length) {
+            return -1;
+        }
+        final int sourceOffset = this.pos % this.source.length;
+        final int n = Math.min(Math.min(len, this.maxReadLength), Math.min(this.length - this.pos, this.source.length - sourceOffset));
+        System.arraycopy(this.source, sourceOffset, b, off, n);
+        this.pos += n;
+        return n;
+    }
+
+    private int pos;
+
+    private final byte[] source;
+    private final int length;
+    private final int maxReadLength;
+}
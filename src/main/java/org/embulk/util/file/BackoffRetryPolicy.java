@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+// BackoffRetryPolicy retries with exponential backoff and jitter, up to "maxAttempts" consecutive failures.
+//
+// The delay before the n-th attempt is "initialDelayMillis * 2^(n-1)", capped by "maxDelayMillis". Then, up to "jitter"
+// (from 0.0 to 1.0) of the delay is subtracted at random so that streams failing together do not retry together.
+//
+// Failures not matching "retryable" are given up immediately. When a RetryBudget is given, every retry takes one from it,
+// and retries are given up once it is exhausted.
+public final class BackoffRetryPolicy implements ResumableInputStream.RetryPolicy {
+    public BackoffRetryPolicy(
+            final long initialDelayMillis,
+            final long maxDelayMillis,
+            final int maxAttempts,
+            final double jitter,
+            final RetryBudget budget,
+            final Predicate<Exception> retryable) {
+        if (initialDelayMillis < 0) {
+            throw new IllegalArgumentException("initialDelayMillis must not be negative.");
+        }
+        if (maxDelayMillis < initialDelayMillis) {
+            throw new IllegalArgumentException("maxDelayMillis must not be less than initialDelayMillis.");
+        }
+        if (maxAttempts < 0) {
+            throw new IllegalArgumentException("maxAttempts must not be negative.");
+        }
+        if (jitter < 0.0 || jitter > 1.0) {
+            throw new IllegalArgumentException("jitter must be from 0.0 to 1.0.");
+        }
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxAttempts = maxAttempts;
+        this.jitter = jitter;
+        this.budget = budget;
+        this.retryable = Objects.requireNonNull(retryable, "retryable");
+    }
+
+    public BackoffRetryPolicy(final long initialDelayMillis, final long maxDelayMillis, final int maxAttempts) {
+        this(initialDelayMillis, maxDelayMillis, maxAttempts, DEFAULT_JITTER, null, ex -> true);
+    }
+
+    @Override
+    public long nextDelayMillis(final int attempt, final Exception cause) {
+        if (attempt > this.maxAttempts) {
+            return -1L;
+        }
+        if (cause != null && !this.retryable.test(cause)) {
+            return -1L;
+        }
+        if (this.budget != null && !this.budget.tryAcquire()) {
+            return -1L;
+        }
+        final long delay = this.exponentialDelayMillis(attempt);
+        if (delay <= 0 || this.jitter == 0.0) {
+            return delay;
+        }
+        final long maxJitter = (long) (delay * this.jitter);
+        return delay - ThreadLocalRandom.current().nextLong(maxJitter + 1);
+    }
+
+    private long exponentialDelayMillis(final int attempt) {
+        final int shift = Math.max(0, attempt - 1);
+        if (shift >= 62 || this.initialDelayMillis > (this.maxDelayMillis >> shift)) {
+            return this.maxDelayMillis;
+        }
+        return Math.min(this.maxDelayMillis, this.initialDelayMillis << shift);
+    }
+
+    private static final double DEFAULT_JITTER = 0.5;
+
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final int maxAttempts;
+    private final double jitter;
+    private final RetryBudget budget;
+    private final Predicate<Exception> retryable;
+}
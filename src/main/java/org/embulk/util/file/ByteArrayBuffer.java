@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import org.embulk.spi.Buffer;
+import org.slf4j.LoggerFactory;
+
+// ByteArrayBuffer creates a Buffer over a range of a byte array, which calls "onRelease" when it is released.
+//
+// ByteArrayBufferCompat and ByteArrayBufferUpToDate are separate independent classes for Embulk v0.9 and v0.10 for
+// the same reason as EmptyBufferCompat and EmptyBufferUpToDate. See EmptyBuffer for the details.
+final class ByteArrayBuffer {
+    private ByteArrayBuffer() {}
+
+    static Buffer create(final byte[] array, final int offset, final int capacity, final Runnable onRelease) {
+        if (Holder.UP_TO_DATE) {
+            return new ByteArrayBufferUpToDate(array, offset, capacity, onRelease);
+        }
+        return new ByteArrayBufferCompat(array, offset, capacity, onRelease);
+    }
+
+    private static class Holder {  // Initialization-on-demand holder idiom.
+        private static final boolean UP_TO_DATE;
+
+        static {
+            try {
+                UP_TO_DATE = isUpToDate();
+            } catch (final Throwable ex) {
+                LoggerFactory.getLogger(ByteArrayBuffer.class).error("Failed to create a ByteArrayBuffer instance.", ex);
+                throw ex;
+            }
+        }
+
+        private static boolean isUpToDate() {
+            try {
+                new ByteArrayBufferUpToDate(EMPTY_BYTES, 0, 0, null);  // throws NoSuchMethodError if working with v0.9.
+                return true;
+            } catch (final NoSuchMethodError ex) {
+                // Pass-through.
+            }
+            new ByteArrayBufferCompat(EMPTY_BYTES, 0, 0, null);
+            return false;
+        }
+    }
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import org.embulk.spi.Buffer;
+
+final class ByteArrayBufferCompat extends Buffer {
+    @SuppressWarnings("deprecation")
+    ByteArrayBufferCompat(final byte[] array, final int offset, final int capacity, final Runnable onRelease) {
+        super(array, offset, capacity);
+        this.array = array;
+        this.offset = offset;
+        this.capacity = capacity;
+        this.limit = 0;
+        this.released = false;
+        this.onRelease = onRelease;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public byte[] array() {
+        return this.array;
+    }
+
+    @Override
+    public int offset() {
+        return this.offset;
+    }
+
+    @Override
+    public Buffer offset(final int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    @Override
+    public int limit() {
+        return this.limit;
+    }
+
+    @Override
+    public Buffer limit(final int limit) {
+        if (limit < 0 || limit > this.capacity) {
+            throw new IllegalArgumentException("limit must be in [0, " + this.capacity + "]: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    @Override
+    public int capacity() {
+        return this.capacity;
+    }
+
+    @Override
+    public void setBytes(final int index, final byte[] source, final int sourceIndex, final int length) {
+        System.arraycopy(source, sourceIndex, this.array, this.offset + index, length);
+    }
+
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    @Override
+    public void setBytes(final int index, final Buffer source, final int sourceIndex, final int length) {
+        this.setBytes(index, source.array(), source.offset() + sourceIndex, length);
+    }
+
+    @Override
+    public void getBytes(final int index, final byte[] dest, final int destIndex, final int length) {
+        System.arraycopy(this.array, this.offset + index, dest, destIndex, length);
+    }
+
+    @Override
+    public void getBytes(final int index, final Buffer dest, final int destIndex, final int length) {
+        dest.setBytes(destIndex, this.array, this.offset + index, length);
+    }
+
+    @Override
+    public void release() {
+        // Released only once even if release() is called twice so that the array is never recycled twice.
+        if (this.released) {
+            return;
+        }
+        this.released = true;
+        if (this.onRelease != null) {
+            this.onRelease.run();
+        }
+    }
+
+    private int offset;
+    private int limit;
+    private boolean released;
+
+    private final byte[] array;
+    private final int capacity;
+    private final Runnable onRelease;
+}
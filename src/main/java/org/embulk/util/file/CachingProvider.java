@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Optional;
+
+// CachingProvider serves files from FileCache when they are cached, or opens them from their sources to fill the cache.
+//
+// A file is identified by its name and its version, such as an ETag or a generation, given by the caller. A changed
+// version is a different cache entry. A cached file is read through a local FileChannel.
+public class CachingProvider implements InputStreamFileInput.Provider {
+    public CachingProvider(final FileCache cache, final Iterator<? extends CacheableSource> sources) {
+        this.cache = cache;
+        this.sources = sources;
+    }
+
+    public CachingProvider(final FileCache cache, final Iterable<? extends CacheableSource> sources) {
+        this(cache, sources.iterator());
+    }
+
+    public interface CacheableSource {
+        String getName();
+
+        // A version which changes whenever the contents change, such as an ETag.
+        String getVersion();
+
+        // The length in bytes, such as Content-Length. A file read with another length is not cached, as it is truncated.
+        long getLength();
+
+        InputStream open() throws IOException;
+    }
+
+    @Override
+    public InputStreamFileInput.InputStreamWithHints openNextWithHints() throws IOException {
+        if (!this.sources.hasNext()) {
+            return null;
+        }
+        final CacheableSource source = this.sources.next();
+        // The name and the version are separated by NUL, which is never in names, not to confuse "a" + "bc" with "ab" + "c".
+        final String key = source.getName() + "\u0000" + source.getVersion();
+        final Optional<Path> cached = this.cache.lookup(key);
+        if (cached.isPresent()) {
+            try {
+                final FileChannel channel = FileChannel.open(cached.get(), StandardOpenOption.READ);
+                return new InputStreamFileInput.InputStreamWithHints(Channels.newInputStream(channel), source.getName());
+            } catch (final NoSuchFileException ex) {
+                // Evicted just after the lookup. Falling back to the source.
+            }
+        }
+        return new InputStreamFileInput.InputStreamWithHints(this.cache.fill(key, source.open(), source.getLength()), source.getName());
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private final FileCache cache;
+    private final Iterator<? extends CacheableSource> sources;
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.lang.reflect.Constructor;
+import java.util.zip.Checksum;
+
+// Crc32c calculates CRC-32C (Castagnoli) for Java 8, which does not have java.util.zip.CRC32C.
+//
+// newChecksum() returns java.util.zip.CRC32C on Java 9 and later, which is accelerated by CPU instructions. It falls back
+// to this pure Java implementation, which processes 8 bytes at a time with the "slicing-by-8" tables.
+final class Crc32c implements Checksum {
+    Crc32c() {
+        this.crc = INITIAL;
+    }
+
+    static Checksum newChecksum() {
+        final Constructor<?> constructor = Holder.BUILT_IN;
+        if (constructor != null) {
+            try {
+                return (Checksum) constructor.newInstance();
+            } catch (final ReflectiveOperationException ex) {
+                // Falling back to the pure Java implementation.
+            }
+        }
+        return new Crc32c();
+    }
+
+    @Override
+    public void update(final int b) {
+        this.crc = (this.crc >>> 8) ^ TABLES[0][(this.crc ^ b) & 0xff];
+    }
+
+    @Override
+    public void update(final byte[] b, final int off, final int len) {
+        final int[] t0 = TABLES[0];
+        final int[] t1 = TABLES[1];
+        final int[] t2 = TABLES[2];
+        final int[] t3 = TABLES[3];
+        final int[] t4 = TABLES[4];
+        final int[] t5 = TABLES[5];
+        final int[] t6 = TABLES[6];
+        final int[] t7 = TABLES[7];
+        int c = this.crc;
+        int i = off;
+        final int end = off + len;
+        while (end - i >= 8) {
+            final int low = c ^ ((b[i] & 0xff) | ((b[i + 1] & 0xff) << 8) | ((b[i + 2] & 0xff) << 16) | ((b[i + 3] & 0xff) << 24));
+            final int high = (b[i + 4] & 0xff) | ((b[i + 5] & 0xff) << 8) | ((b[i + 6] & 0xff) << 16) | ((b[i + 7] & 0xff) << 24);
+            c = t7[low & 0xff] ^ t6[(low >>> 8) & 0xff] ^ t5[(low >>> 16) & 0xff] ^ t4[low >>> 24]
+                    ^ t3[high & 0xff] ^ t2[(high >>> 8) & 0xff] ^ t1[(high >>> 16) & 0xff] ^ t0[high >>> 24];
+            i += 8;
+        }
+        while (i < end) {
+            c = (c >>> 8) ^ t0[(c ^ b[i]) & 0xff];
+            i++;
+        }
+        this.crc = c;
+    }
+
+    @Override
+    public long getValue() {
+        return (~this.crc) & 0xffffffffL;
+    }
+
+    @Override
+    public void reset() {
+        this.crc = INITIAL;
+    }
+
+    private static int[][] buildTables() {
+        final int[][] tables = new int[8][256];
+        for (int i = 0; i < 256; i++) {
+            int c = i;
+            for (int k = 0; k < 8; k++) {
+                c = (c & 1) != 0 ? (c >>> 1) ^ POLYNOMIAL : c >>> 1;
+            }
+            tables[0][i] = c;
+        }
+        for (int t = 1; t < 8; t++) {
+            for (int i = 0; i < 256; i++) {
+                final int previous = tables[t - 1][i];
+                tables[t][i] = (previous >>> 8) ^ tables[0][previous & 0xff];
+            }
+        }
+        return tables;
+    }
+
+    private static class Holder {  // Initialization-on-demand holder idiom.
+        private static final Constructor<?> BUILT_IN = findBuiltIn();
+
+        private static Constructor<?> findBuiltIn() {
+            try {
+                return Class.forName("java.util.zip.CRC32C").getConstructor();
+            } catch (final ReflectiveOperationException | LinkageError ex) {
+                return null;  // Java 8
+            }
+        }
+    }
+
+    private static final int POLYNOMIAL = 0x82f63b78;  // Reversed 0x1edc6f41
+    private static final int INITIAL = 0xffffffff;
+    private static final int[][] TABLES = buildTables();
+
+    private int crc;
+}
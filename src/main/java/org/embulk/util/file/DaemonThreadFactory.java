@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Threads for background I/O in this library are daemon threads so that they never prevent the JVM from exiting
+// even if a plugin forgets to close its FileInput or FileOutput.
+final class DaemonThreadFactory implements ThreadFactory {
+    DaemonThreadFactory(final String namePrefix) {
+        this.namePrefix = namePrefix;
+        this.count = new AtomicInteger(0);
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, this.namePrefix + "-" + this.count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private final String namePrefix;
+    private final AtomicInteger count;
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+
+// DelimitedRecordReader splits each file from FileInput into records separated by a delimiter, directly on Buffers.
+//
+// A record is returned as a range of a byte array without copying when it is in one Buffer. Only a record spanning over
+// Buffers is copied, and only its own bytes, into an internal array. The delimiter is not included in records. The last
+// record of a file is returned even without a delimiter at its end.
+//
+// The Record returned is valid only until the next call of nextRecord(), nextFile() or close(). It must be copied, for
+// example by Record#toByteArray(), to be kept longer.
+public class DelimitedRecordReader {
+    public DelimitedRecordReader(final FileInput in, final Delimiter delimiter) {
+        this.pos = 0;
+        this.buffer = EmptyBuffer.getInstance();
+        this.endOfFile = true;
+        this.stitched = EMPTY_BYTES;
+        this.stitchedLength = 0;
+        this.stitchedReturned = false;
+
+        this.in = in;
+        this.delimiter = delimiter.bytes;
+        this.stripCarriageReturn = delimiter.stripCarriageReturn;
+        this.record = new Record();
+    }
+
+    public DelimitedRecordReader(final FileInput in) {
+        this(in, Delimiter.lineFeedOrCrlf());
+    }
+
+    public static final class Delimiter {
+        private Delimiter(final byte[] bytes, final boolean stripCarriageReturn) {
+            this.bytes = bytes;
+            this.stripCarriageReturn = stripCarriageReturn;
+        }
+
+        public static Delimiter lineFeed() {
+            return LF;
+        }
+
+        public static Delimiter crlf() {
+            return CRLF;
+        }
+
+        // Splits at LF, and strips CR just before LF as well, so that both LF and CRLF line breaks are accepted.
+        public static Delimiter lineFeedOrCrlf() {
+            return LF_OR_CRLF;
+        }
+
+        public static Delimiter of(final byte[] bytes) {
+            if (bytes.length == 0) {
+                throw new IllegalArgumentException("Delimiter must not be empty.");
+            }
+            return new Delimiter(bytes.clone(), false);
+        }
+
+        // The bytes to split at, without CR which may be stripped.
+        byte[] bytes() {
+            return this.bytes;
+        }
+
+        private static final Delimiter LF = new Delimiter(new byte[] { '\n' }, false);
+        private static final Delimiter CRLF = new Delimiter(new byte[] { '\r', '\n' }, false);
+        private static final Delimiter LF_OR_CRLF = new Delimiter(new byte[] { '\n' }, true);
+
+        private final byte[] bytes;
+        private final boolean stripCarriageReturn;
+    }
+
+    public static final class Record {
+        private Record() {
+            this.array = EMPTY_BYTES;
+            this.offset = 0;
+            this.length = 0;
+        }
+
+        public byte[] getArray() {
+            return this.array;
+        }
+
+        public int getOffset() {
+            return this.offset;
+        }
+
+        public int getLength() {
+            return this.length;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOfRange(this.array, this.offset, this.offset + this.length);
+        }
+
+        public String toString(final Charset charset) {
+            return new String(this.array, this.offset, this.length, charset);
+        }
+
+        private Record set(final byte[] array, final int offset, final int length) {
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+            return this;
+        }
+
+        private byte[] array;
+        private int offset;
+        private int length;
+    }
+
+    public boolean nextFile() {
+        this.releaseBuffer();
+        this.stitchedLength = 0;
+        this.stitchedReturned = false;
+        final boolean hasNext = this.in.nextFile();
+        this.endOfFile = !hasNext;
+        return hasNext;
+    }
+
+    // Returns the next record in the current file, or null at the end of the current file.
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    public Record nextRecord() {
+        if (this.stitchedReturned) {
+            this.stitchedLength = 0;
+            this.stitchedReturned = false;
+        }
+        while (true) {
+            if (this.pos >= this.buffer.limit()) {
+                if (!this.nextBuffer()) {
+                    if (this.stitchedLength > 0) {
+                        // The last record without a delimiter at the end of the file.
+                        this.stitchedReturned = true;
+                        return this.stripped(this.stitched, 0, this.stitchedLength);
+                    }
+                    return null;
+                }
+                continue;
+            }
+            final byte[] array = this.buffer.array();
+            final int start = this.buffer.offset() + this.pos;
+            final int end = this.buffer.offset() + this.buffer.limit();
+            final int found = this.indexOfDelimiter(array, start, end);
+
+            if (this.stitchedLength == 0) {
+                if (found >= 0) {
+                    this.pos = found + this.delimiter.length - this.buffer.offset();
+                    return this.stripped(array, start, found - start);
+                }
+                this.appendStitched(array, start, end - start);
+                this.releaseBuffer();
+                continue;
+            }
+
+            // The delimiter may start in the stitched bytes, and end in this Buffer. Bytes up to the end of the delimiter
+            // found in this Buffer are appended, and the stitched bytes are searched again around the boundary.
+            final int searchFrom = Math.max(0, this.stitchedLength - (this.delimiter.length - 1));
+            final int appendLength = (found >= 0 ? found + this.delimiter.length : end) - start;
+            this.appendStitched(array, start, appendLength);
+            final int foundStitched = this.indexOfDelimiter(this.stitched, searchFrom, this.stitchedLength);
+            if (foundStitched >= 0) {
+                // Bytes appended after the delimiter are given back to this Buffer.
+                final int delimiterEnd = foundStitched + this.delimiter.length;
+                this.pos += appendLength - (this.stitchedLength - delimiterEnd);
+                this.stitchedReturned = true;
+                return this.stripped(this.stitched, 0, foundStitched);
+            }
+            this.releaseBuffer();
+        }
+    }
+
+    public void close() {
+        this.releaseBuffer();
+        this.stitched = EMPTY_BYTES;
+        this.stitchedLength = 0;
+        this.in.close();
+    }
+
+    private int indexOfDelimiter(final byte[] array, final int start, final int end) {
+        final byte[] delimiter = this.delimiter;
+        final byte first = delimiter[0];
+        if (delimiter.length == 1) {
+            for (int i = start; i < end; i++) {
+                if (array[i] == first) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        final int lastStart = end - delimiter.length;
+        outer:
+        for (int i = start; i <= lastStart; i++) {
+            if (array[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < delimiter.length; j++) {
+                if (array[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private Record stripped(final byte[] array, final int offset, final int length) {
+        if (this.stripCarriageReturn && length > 0 && array[offset + length - 1] == '\r') {
+            return this.record.set(array, offset, length - 1);
+        }
+        return this.record.set(array, offset, length);
+    }
+
+    private void appendStitched(final byte[] array, final int offset, final int length) {
+        final int required = this.stitchedLength + length;
+        if (required > this.stitched.length) {
+            this.stitched = Arrays.copyOf(this.stitched, Math.max(required, Math.max(this.stitched.length * 2, 256)));
+        }
+        System.arraycopy(array, offset, this.stitched, this.stitchedLength, length);
+        this.stitchedLength = required;
+    }
+
+    private boolean nextBuffer() {
+        this.releaseBuffer();
+        if (this.endOfFile) {
+            return false;
+        }
+        final Buffer b = this.in.poll();
+        if (b == null) {
+            this.endOfFile = true;
+            return false;
+        }
+        this.buffer = b;
+        return true;
+    }
+
+    private void releaseBuffer() {
+        this.buffer.release();
+        this.buffer = EmptyBuffer.getInstance();
+        this.pos = 0;
+    }
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private int pos;
+    private Buffer buffer;
+    private boolean endOfFile;
+    private byte[] stitched;
+    private int stitchedLength;
+    private boolean stitchedReturned;
+
+    private final FileInput in;
+    private final byte[] delimiter;
+    private final boolean stripCarriageReturn;
+    private final Record record;
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.embulk.spi.BufferAllocator;
+import org.embulk.spi.FileInput;
+
+// DelimitedSplitPlanner plans byte-range splits of one large source so that each split can be read by a different task.
+//
+// The source is split into about equal byte ranges, and each boundary is moved forward to just after the next delimiter.
+// Only the bytes around each boundary are read to plan. Every record is then in exactly one split. A boundary which finds
+// no delimiter before the next one is dropped, so fewer splits than requested may be planned.
+//
+// The planner does not know quoting in the records. It should not be used for records which may contain the delimiter,
+// for example CSV with line breaks in quoted values.
+//
+// Split is a pair of offsets, so that it can be passed to other tasks, and read there by another DelimitedSplitPlanner
+// over the same source.
+public class DelimitedSplitPlanner {
+    public DelimitedSplitPlanner(
+            final ResumableInputStream.Reopener reopener,
+            final long length,
+            final DelimitedRecordReader.Delimiter delimiter,
+            final String hintOfFileNameForLogging) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must not be negative.");
+        }
+        this.reopener = reopener;
+        this.length = length;
+        this.delimiter = delimiter.bytes();
+        this.hintOfFileNameForLogging = hintOfFileNameForLogging;
+    }
+
+    public DelimitedSplitPlanner(
+            final ResumableInputStream.Reopener reopener,
+            final long length,
+            final DelimitedRecordReader.Delimiter delimiter) {
+        this(reopener, length, delimiter, null);
+    }
+
+    public static final class Split {
+        public Split(final long start, final long end) {
+            if (start < 0 || end < start) {
+                throw new IllegalArgumentException("Invalid split: [" + start + ", " + end + ")");
+            }
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getStart() {
+            return this.start;
+        }
+
+        public long getEnd() {
+            return this.end;
+        }
+
+        public long getLength() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public boolean equals(final Object otherObject) {
+            if (!(otherObject instanceof Split)) {
+                return false;
+            }
+            final Split other = (Split) otherObject;
+            return this.start == other.start && this.end == other.end;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.start) * 31 + Long.hashCode(this.end);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + this.start + ", " + this.end + ")";
+        }
+
+        private final long start;
+        private final long end;
+    }
+
+    // Plans up to "numberOfSplits" splits which cover the whole source in order.
+    public List<Split> plan(final int numberOfSplits) throws IOException {
+        if (numberOfSplits <= 0) {
+            throw new IllegalArgumentException("numberOfSplits must be positive.");
+        }
+        final ArrayList<Split> splits = new ArrayList<>();
+        long start = 0L;
+        for (int i = 1; i < numberOfSplits; i++) {
+            final long nominal = this.length / numberOfSplits * i + Math.min(i, this.length % numberOfSplits);
+            if (nominal <= start) {
+                continue;
+            }
+            final long nextNominal = this.length / numberOfSplits * (i + 1) + Math.min(i + 1, this.length % numberOfSplits);
+            final long boundary = this.findBoundary(Math.max(start, nominal - this.delimiter.length), nominal, nextNominal);
+            if (boundary < 0 || boundary >= this.length) {
+                continue;
+            }
+            splits.add(new Split(start, boundary));
+            start = boundary;
+        }
+        splits.add(new Split(start, this.length));
+        return splits;
+    }
+
+    // Opens the split as a stream, which resumes through the Reopener on failures, and ends at the end of the split.
+    public InputStream open(final Split split) throws IOException {
+        final long start = split.getStart();
+        return new BoundedInputStream(
+                new ResumableInputStream((offset, cause) -> this.reopener.reopen(start + offset, cause)), split.getLength());
+    }
+
+    // Creates a FileInput which has one file of the split.
+    public FileInput newFileInput(final BufferAllocator allocator, final Split split) {
+        return new InputStreamFileInput(allocator, new SplitProvider(split));
+    }
+
+    // Finds the end of the first delimiter which ends at or after "nominal", scanning from "from" until "limit".
+    private long findBoundary(final long from, final long nominal, final long limit) throws IOException {
+        final byte[] delimiter = this.delimiter;
+        final byte[] chunk = new byte[SCAN_CHUNK_SIZE + delimiter.length - 1];
+        int carried = 0;  // Bytes at the end of the previous chunk, which may be the beginning of a delimiter.
+        long chunkStart = from;
+        try (final InputStream in = this.reopener.reopen(from, null)) {
+            while (chunkStart + carried < limit) {
+                final int n = in.read(chunk, carried, (int) Math.min((long) SCAN_CHUNK_SIZE, limit - chunkStart - carried));
+                if (n < 0) {
+                    return -1;
+                }
+                final int filled = carried + n;
+                for (int i = 0; i + delimiter.length <= filled; i++) {
+                    if (matchesAt(chunk, i, delimiter) && chunkStart + i + delimiter.length >= nominal) {
+                        return chunkStart + i + delimiter.length;
+                    }
+                }
+                carried = Math.min(delimiter.length - 1, filled);
+                System.arraycopy(chunk, filled - carried, chunk, 0, carried);
+                chunkStart += filled - carried;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesAt(final byte[] bytes, final int index, final byte[] delimiter) {
+        for (int j = 0; j < delimiter.length; j++) {
+            if (bytes[index + j] != delimiter[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private class SplitProvider implements InputStreamFileInput.Provider {
+        SplitProvider(final Split split) {
+            this.split = split;
+            this.opened = false;
+        }
+
+        @Override
+        public InputStreamFileInput.InputStreamWithHints openNextWithHints() throws IOException {
+            if (this.opened) {
+                return null;
+            }
+            this.opened = true;
+            final String hint = DelimitedSplitPlanner.this.hintOfFileNameForLogging;
+            return new InputStreamFileInput.InputStreamWithHints(
+                    DelimitedSplitPlanner.this.open(this.split), hint == null ? null : hint + this.split.toString());
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private final Split split;
+        private boolean opened;
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+        BoundedInputStream(final InputStream in, final long remaining) {
+            super(in);
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.remaining <= 0) {
+                return -1;
+            }
+            final int b = this.in.read();
+            if (b >= 0) {
+                this.remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (this.remaining <= 0) {
+                return -1;
+            }
+            final int n = this.in.read(b, off, (int) Math.min((long) len, this.remaining));
+            if (n > 0) {
+                this.remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = this.in.skip(Math.min(n, this.remaining));
+            if (skipped > 0) {
+                this.remaining -= skipped;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min((long) this.in.available(), this.remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private long remaining;
+    }
+
+    private static final int SCAN_CHUNK_SIZE = 64 * 1024;
+
+    private final ResumableInputStream.Reopener reopener;
+    private final long length;
+    private final byte[] delimiter;
+    private final String hintOfFileNameForLogging;
+}
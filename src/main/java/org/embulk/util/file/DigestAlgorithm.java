@@ -0,0 +1,28 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+// DigestAlgorithm lists checksums and digests which DigestingFileInput and DigestingFileOutput can calculate.
+//
+// Checksums, CRC32 and CRC32C, are represented in 4 bytes in big-endian, as in Google Cloud Storage and Amazon S3.
+public enum DigestAlgorithm {
+    CRC32,
+    CRC32C,
+    MD5,
+    SHA_256,
+    ;
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import org.embulk.spi.Buffer;
+
+// Digester updates all the digests of a file with each Buffer, directly from the array of the Buffer.
+final class Digester {
+    Digester(final Set<DigestAlgorithm> algorithms) {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("At least one DigestAlgorithm must be specified.");
+        }
+        this.bytes = 0L;
+
+        this.checksums = new EnumMap<>(DigestAlgorithm.class);
+        this.messageDigests = new EnumMap<>(DigestAlgorithm.class);
+        for (final DigestAlgorithm algorithm : algorithms) {
+            switch (algorithm) {
+                case CRC32:
+                    this.checksums.put(algorithm, new CRC32());
+                    break;
+                case CRC32C:
+                    this.checksums.put(algorithm, Crc32c.newChecksum());
+                    break;
+                case MD5:
+                    this.messageDigests.put(algorithm, newMessageDigest("MD5"));
+                    break;
+                case SHA_256:
+                    this.messageDigests.put(algorithm, newMessageDigest("SHA-256"));
+                    break;
+                default:  // Never default as all enums are listed.
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    void update(final Buffer buffer) {
+        final byte[] array = buffer.array();
+        final int offset = buffer.offset();
+        final int length = buffer.limit();
+        for (final Checksum checksum : this.checksums.values()) {
+            checksum.update(array, offset, length);
+        }
+        for (final MessageDigest messageDigest : this.messageDigests.values()) {
+            messageDigest.update(array, offset, length);
+        }
+        this.bytes += length;
+    }
+
+    // Returns the digests of the file so far, and resets for the next file.
+    FileDigests finish(final boolean complete) {
+        final EnumMap<DigestAlgorithm, byte[]> digests = new EnumMap<>(DigestAlgorithm.class);
+        for (final Map.Entry<DigestAlgorithm, Checksum> entry : this.checksums.entrySet()) {
+            final long value = entry.getValue().getValue();
+            digests.put(entry.getKey(), new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value });
+            entry.getValue().reset();
+        }
+        for (final Map.Entry<DigestAlgorithm, MessageDigest> entry : this.messageDigests.entrySet()) {
+            digests.put(entry.getKey(), entry.getValue().digest());  // digest() resets MessageDigest.
+        }
+        final FileDigests fileDigests = new FileDigests(digests, this.bytes, complete);
+        this.bytes = 0L;
+        return fileDigests;
+    }
+
+    private static MessageDigest newMessageDigest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (final NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support MD5 and SHA-256.
+            throw new IllegalStateException(algorithm + " is not available.", ex);
+        }
+    }
+
+    private long bytes;
+
+    private final EnumMap<DigestAlgorithm, Checksum> checksums;
+    private final EnumMap<DigestAlgorithm, MessageDigest> messageDigests;
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+
+// DigestingFileInput calculates checksums and digests of each file while Buffers pass through it, without copying.
+//
+// A file is digested when poll() returns null at its end, or when nextFile() is called in the middle of it. The digests
+// are passed to "onFileDigested", and are also kept as getLastFileDigests() until the next file is digested.
+public class DigestingFileInput implements FileInput {
+    public DigestingFileInput(
+            final FileInput delegate,
+            final Set<DigestAlgorithm> algorithms,
+            final Consumer<FileDigests> onFileDigested) {
+        this.inFile = false;
+        this.lastFileDigests = null;
+
+        this.delegate = delegate;
+        this.digester = new Digester(algorithms);
+        this.onFileDigested = onFileDigested;
+    }
+
+    public DigestingFileInput(final FileInput delegate, final Set<DigestAlgorithm> algorithms) {
+        this(delegate, algorithms, null);
+    }
+
+    public DigestingFileInput(final FileInput delegate, final DigestAlgorithm algorithm, final DigestAlgorithm... algorithms) {
+        this(delegate, EnumSet.of(algorithm, algorithms));
+    }
+
+    @Override
+    public boolean nextFile() {
+        if (this.inFile) {
+            this.digest(false);
+        }
+        final boolean hasNext = this.delegate.nextFile();
+        this.inFile = hasNext;
+        return hasNext;
+    }
+
+    @Override
+    public Buffer poll() {
+        final Buffer buffer = this.delegate.poll();
+        if (buffer == null) {
+            if (this.inFile) {
+                this.digest(true);
+            }
+            return null;
+        }
+        this.digester.update(buffer);
+        return buffer;
+    }
+
+    @Override
+    public void close() {
+        this.delegate.close();
+    }
+
+    @Override
+    public Optional<String> hintOfCurrentInputFileNameForLogging() {
+        return this.delegate.hintOfCurrentInputFileNameForLogging();
+    }
+
+    public Optional<FileDigests> getLastFileDigests() {
+        return Optional.ofNullable(this.lastFileDigests);
+    }
+
+    private void digest(final boolean complete) {
+        this.inFile = false;
+        this.lastFileDigests = this.digester.finish(complete);
+        if (this.onFileDigested != null) {
+            this.onFileDigested.accept(this.lastFileDigests);
+        }
+    }
+
+    private boolean inFile;
+    private FileDigests lastFileDigests;
+
+    private final FileInput delegate;
+    private final Digester digester;
+    private final Consumer<FileDigests> onFileDigested;
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+
+// DigestingFileOutput calculates checksums and digests of each file while Buffers pass through it, without copying.
+//
+// A file is digested at the next nextFile() or finish(). The digests are passed to "onFileDigested", and are also kept
+// as getLastFileDigests() until the next file is digested.
+public class DigestingFileOutput implements FileOutput {
+    public DigestingFileOutput(
+            final FileOutput delegate,
+            final Set<DigestAlgorithm> algorithms,
+            final Consumer<FileDigests> onFileDigested) {
+        this.inFile = false;
+        this.lastFileDigests = null;
+
+        this.delegate = delegate;
+        this.digester = new Digester(algorithms);
+        this.onFileDigested = onFileDigested;
+    }
+
+    public DigestingFileOutput(final FileOutput delegate, final Set<DigestAlgorithm> algorithms) {
+        this(delegate, algorithms, null);
+    }
+
+    public DigestingFileOutput(final FileOutput delegate, final DigestAlgorithm algorithm, final DigestAlgorithm... algorithms) {
+        this(delegate, EnumSet.of(algorithm, algorithms));
+    }
+
+    @Override
+    public void nextFile() {
+        this.digest();
+        this.delegate.nextFile();
+        this.inFile = true;
+    }
+
+    @Override
+    public void add(final Buffer buffer) {
+        // Digested before add() as the Buffer may be released in add().
+        this.digester.update(buffer);
+        this.delegate.add(buffer);
+    }
+
+    @Override
+    public void finish() {
+        this.digest();
+        this.delegate.finish();
+    }
+
+    @Override
+    public void close() {
+        this.delegate.close();
+    }
+
+    public Optional<FileDigests> getLastFileDigests() {
+        return Optional.ofNullable(this.lastFileDigests);
+    }
+
+    private void digest() {
+        if (!this.inFile) {
+            return;
+        }
+        this.inFile = false;
+        this.lastFileDigests = this.digester.finish(true);
+        if (this.onFileDigested != null) {
+            this.onFileDigested.accept(this.lastFileDigests);
+        }
+    }
+
+    private boolean inFile;
+    private FileDigests lastFileDigests;
+
+    private final FileOutput delegate;
+    private final Digester digester;
+    private final Consumer<FileDigests> onFileDigested;
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+import org.embulk.spi.FileOutput;
+
+// FileBufferPipe connects a FileOutput on one thread to a FileInput on another thread in the same process.
+//
+// Buffers added to the FileOutput are polled from the FileInput as they are, without copying, in the same files split by
+// nextFile(). They pass through a bounded single-producer single-consumer ring without locks. The FileOutput waits when
+// the ring is full, and the FileInput waits when it is empty, by spinning, yielding, and then parking for a short time.
+//
+// Exactly one thread may use the FileOutput, and exactly one other thread may use the FileInput.
+//
+// finish() of the FileOutput ends the files of the FileInput. If the FileOutput is closed without finish(), the FileInput
+// fails instead of ending normally. If the FileInput is closed first, the FileOutput fails, and Buffers left in the ring
+// are released.
+public class FileBufferPipe {
+    public FileBufferPipe(final int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be in [1, " + MAX_CAPACITY + "].");
+        }
+        final int roundedCapacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.outputClosed = false;
+        this.inputClosed = false;
+
+        this.slots = new Object[roundedCapacity];
+        this.mask = roundedCapacity - 1;
+        this.head = new AtomicLong(0L);
+        this.tail = new AtomicLong(0L);
+        this.output = new Output();
+        this.input = new Input();
+    }
+
+    public FileBufferPipe() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FileOutput getFileOutput() {
+        return this.output;
+    }
+
+    public FileInput getFileInput() {
+        return this.input;
+    }
+
+    private final class Output implements FileOutput {
+        Output() {
+            this.cachedHead = 0L;
+            this.inFile = false;
+            this.finished = false;
+            this.closed = false;
+        }
+
+        @Override
+        public void nextFile() {
+            this.ensureOpen();
+            this.put(NEXT_FILE);
+            this.inFile = true;
+        }
+
+        @Override
+        public void add(final Buffer buffer) {
+            if (this.closed || this.finished || !this.inFile) {
+                buffer.release();
+                this.ensureOpen();
+                throw new IllegalStateException("FileBufferPipe's FileOutput#nextFile() must be called before add().");
+            }
+            this.put(buffer);
+        }
+
+        @Override
+        public void finish() {
+            this.ensureOpen();
+            this.put(END);
+            this.finished = true;
+        }
+
+        @Override
+        public void close() {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            FileBufferPipe.this.outputClosed = true;
+            if (FileBufferPipe.this.inputClosed) {
+                FileBufferPipe.this.releaseAll();
+            }
+        }
+
+        private void put(final Object item) {
+            final long tail = FileBufferPipe.this.tail.get();
+            int waits = 0;
+            while (tail - this.cachedHead >= FileBufferPipe.this.slots.length) {
+                this.cachedHead = FileBufferPipe.this.head.get();
+                if (tail - this.cachedHead < FileBufferPipe.this.slots.length) {
+                    break;
+                }
+                try {
+                    this.ensureReceiving();
+                    waits = backOff(waits);
+                } catch (final RuntimeException ex) {
+                    if (item instanceof Buffer) {
+                        ((Buffer) item).release();
+                    }
+                    throw ex;
+                }
+            }
+            FileBufferPipe.this.slots[(int) (tail & FileBufferPipe.this.mask)] = item;
+            FileBufferPipe.this.tail.lazySet(tail + 1);
+            if (FileBufferPipe.this.inputClosed) {
+                // The FileInput may have been closed after its last look at the ring. Nobody would take the item.
+                FileBufferPipe.this.releaseAll();
+                this.ensureReceiving();
+            }
+        }
+
+        private void ensureOpen() {
+            if (this.closed) {
+                throw new IllegalStateException("FileBufferPipe's FileOutput is already closed.");
+            }
+            if (this.finished) {
+                throw new IllegalStateException("FileBufferPipe's FileOutput is already finished.");
+            }
+            this.ensureReceiving();
+        }
+
+        private void ensureReceiving() {
+            if (FileBufferPipe.this.inputClosed) {
+                throw new IllegalStateException("FileBufferPipe's FileInput is closed.");
+            }
+        }
+
+        private long cachedHead;
+        private boolean inFile;
+        private boolean finished;
+        private boolean closed;
+    }
+
+    private final class Input implements FileInput {
+        Input() {
+            this.cachedTail = 0L;
+            this.inFile = false;
+            this.ended = false;
+            this.closed = false;
+        }
+
+        @Override
+        public boolean nextFile() {
+            this.ensureOpen();
+            if (this.ended) {
+                return false;
+            }
+            while (true) {
+                final Object item = this.take();
+                if (item == NEXT_FILE) {
+                    this.inFile = true;
+                    return true;
+                } else if (item == END) {
+                    this.inFile = false;
+                    this.ended = true;
+                    return false;
+                }
+                ((Buffer) item).release();  // The rest of the current file is skipped.
+            }
+        }
+
+        @Override
+        public Buffer poll() {
+            this.ensureOpen();
+            if (!this.inFile) {
+                throw new IllegalStateException("FileBufferPipe's FileInput#nextFile() must be called before poll().");
+            }
+            final Object item = this.peek();
+            if (item == NEXT_FILE || item == END) {
+                return null;  // The marker is left for nextFile().
+            }
+            this.advance();
+            return (Buffer) item;
+        }
+
+        @Override
+        public void close() {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            FileBufferPipe.this.inputClosed = true;
+            FileBufferPipe.this.releaseAll();
+        }
+
+        private Object take() {
+            final Object item = this.peek();
+            this.advance();
+            return item;
+        }
+
+        private Object peek() {
+            final long head = FileBufferPipe.this.head.get();
+            int waits = 0;
+            while (head >= this.cachedTail) {
+                this.cachedTail = FileBufferPipe.this.tail.get();
+                if (head < this.cachedTail) {
+                    break;
+                }
+                if (FileBufferPipe.this.outputClosed) {
+                    // The tail is read again as the last items may have been put just before the FileOutput was closed.
+                    this.cachedTail = FileBufferPipe.this.tail.get();
+                    if (head < this.cachedTail) {
+                        break;
+                    }
+                    throw new UncheckedIOException(new IOException("FileBufferPipe's FileOutput is closed without finish()."));
+                }
+                waits = backOff(waits);
+            }
+            return FileBufferPipe.this.slots[(int) (head & FileBufferPipe.this.mask)];
+        }
+
+        private void advance() {
+            final long head = FileBufferPipe.this.head.get();
+            FileBufferPipe.this.slots[(int) (head & FileBufferPipe.this.mask)] = null;
+            FileBufferPipe.this.head.lazySet(head + 1);
+        }
+
+        private void ensureOpen() {
+            if (this.closed) {
+                throw new IllegalStateException("FileBufferPipe's FileInput is already closed.");
+            }
+        }
+
+        private long cachedTail;
+        private boolean inFile;
+        private boolean ended;
+        private boolean closed;
+    }
+
+    // Takes everything left in the ring as a consumer after the FileInput is closed. It is synchronized as both sides may
+    // call it while closing, but it is never called while the FileInput is taking from the ring.
+    private synchronized void releaseAll() {
+        long head = this.head.get();
+        final long tail = this.tail.get();
+        while (head < tail) {
+            final int index = (int) (head & this.mask);
+            final Object item = this.slots[index];
+            this.slots[index] = null;
+            if (item instanceof Buffer) {
+                ((Buffer) item).release();
+            }
+            head++;
+        }
+        this.head.set(head);
+    }
+
+    // Spins first, then yields, and then parks for a short time, as the other side is usually quick to catch up.
+    private static int backOff(final int waits) {
+        if (waits < SPINS) {
+            return waits + 1;
+        }
+        if (waits < SPINS + YIELDS) {
+            Thread.yield();
+            return waits + 1;
+        }
+        LockSupport.parkNanos(PARK_NANOS);
+        if (Thread.interrupted()) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for the other side of FileBufferPipe."));
+        }
+        return waits;
+    }
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int SPINS = 100;
+    private static final int YIELDS = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    private static final Object NEXT_FILE = new Object();
+    private static final Object END = new Object();
+
+    private volatile boolean outputClosed;
+    private volatile boolean inputClosed;
+
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong head;
+    private final AtomicLong tail;
+    private final Output output;
+    private final Input input;
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+// FileCache keeps contents of files in a local directory, keyed by an identity of each file, with LRU eviction by size.
+//
+// Each entry is stored in a file named by SHA-256 of the key. An entry is filled through a temporary file, which is moved
+// to the entry atomically only when the source is read until its end with exactly the expected length. A fill which fails,
+// stops partway, or ends early as a truncated download does, leaves nothing in the cache. The last access time is kept
+// as the last modified time of the file so that the LRU order survives over processes. Temporary files left by a crashed
+// process are removed when FileCache is created on the directory.
+//
+// FileCache can be shared by threads. Multiple processes should not share the same directory at the same time.
+public class FileCache {
+    public FileCache(final Path directory, final long maxTotalBytes) {
+        if (maxTotalBytes <= 0) {
+            throw new IllegalArgumentException("maxTotalBytes must be positive.");
+        }
+        this.totalBytes = 0L;
+
+        this.directory = directory;
+        this.maxTotalBytes = maxTotalBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        try {
+            Files.createDirectories(directory);
+            this.loadEntries();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Returns the cached file of the key, and marks it as used recently.
+    public synchronized Optional<Path> lookup(final String key) {
+        final String fileName = fileNameOf(key);
+        final Long size = this.entries.get(fileName);  // get() moves the entry to the most recently used, not containsKey().
+        if (size == null) {
+            return Optional.empty();
+        }
+        final Path path = this.directory.resolve(fileName);
+        if (!Files.isRegularFile(path)) {
+            this.entries.remove(fileName);
+            this.totalBytes -= size;
+            return Optional.empty();
+        }
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (final IOException ex) {
+            // Passing through intentionally as it only affects the LRU order in later processes.
+        }
+        return Optional.of(path);
+    }
+
+    // Returns a stream which reads the source as-is, and fills the cache of the key when the source is read until its end
+    // with exactly "expectedLength" bytes, such as Content-Length of the source.
+    //
+    // Failures in writing the cache do not fail reading. The cache is just not filled then.
+    public InputStream fill(final String key, final InputStream source, final long expectedLength) {
+        if (expectedLength < 0) {
+            throw new IllegalArgumentException("expectedLength must not be negative.");
+        }
+        final String fileName = fileNameOf(key);
+        final Path temporary = this.directory.resolve(fileName + "." + UUID.randomUUID() + TEMPORARY_SUFFIX);
+        OutputStream out = null;
+        if (expectedLength <= this.maxTotalBytes) {  // It would never fit in the cache otherwise.
+            try {
+                out = new BufferedOutputStream(Files.newOutputStream(temporary), WRITE_BUFFER_SIZE);
+            } catch (final IOException ex) {
+                // Passing through intentionally. The cache is just not filled.
+            }
+        }
+        return new FillingInputStream(source, fileName, temporary, out, expectedLength);
+    }
+
+    public synchronized long getTotalBytes() {
+        return this.totalBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return this.entries.size();
+    }
+
+    private void loadEntries() throws IOException {
+        final ArrayList<Path> cached = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+            for (final Path path : stream) {
+                final String name = path.getFileName().toString();
+                if (name.endsWith(TEMPORARY_SUFFIX)) {
+                    Files.deleteIfExists(path);
+                } else if (name.endsWith(ENTRY_SUFFIX) && Files.isRegularFile(path)) {
+                    cached.add(path);
+                }
+            }
+        }
+        final Map<Path, Long> lastModified = new LinkedHashMap<>();
+        for (final Path path : cached) {
+            lastModified.put(path, Files.getLastModifiedTime(path).toMillis());
+        }
+        cached.sort((a, b) -> Long.compare(lastModified.get(a), lastModified.get(b)));
+        synchronized (this) {
+            for (final Path path : cached) {
+                final long size = Files.size(path);
+                this.entries.put(path.getFileName().toString(), size);
+                this.totalBytes += size;
+            }
+            this.evict();
+        }
+    }
+
+    private synchronized void commit(final String fileName, final Path temporary, final long size) throws IOException {
+        final Path path = this.directory.resolve(fileName);
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException ex) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        final Long replaced = this.entries.put(fileName, size);
+        if (replaced != null) {
+            this.totalBytes -= replaced;
+        }
+        this.totalBytes += size;
+        this.evict();
+    }
+
+    // Removes least recently used entries until the total size fits. An entry being read may be removed, which is fine
+    // on POSIX file systems where an opened file can still be read after it is deleted.
+    private void evict() {
+        final Iterator<Map.Entry<String, Long>> iterator = this.entries.entrySet().iterator();
+        while (this.totalBytes > this.maxTotalBytes && iterator.hasNext()) {
+            final Map.Entry<String, Long> entry = iterator.next();
+            try {
+                Files.deleteIfExists(this.directory.resolve(entry.getKey()));
+            } catch (final IOException ex) {
+                continue;  // Kept in the index to retry later, for example when it is opened on Windows.
+            }
+            this.totalBytes -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    private static String fileNameOf(final String key) {
+        final MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available.", ex);
+        }
+        final byte[] digest = sha256.digest(key.getBytes(StandardCharsets.UTF_8));
+        final StringBuilder builder = new StringBuilder(digest.length * 2 + ENTRY_SUFFIX.length());
+        for (final byte b : digest) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.append(ENTRY_SUFFIX).toString();
+    }
+
+    private final class FillingInputStream extends FilterInputStream {
+        FillingInputStream(
+                final InputStream in,
+                final String fileName,
+                final Path temporary,
+                final OutputStream out,
+                final long expectedLength) {
+            super(in);
+            this.out = out;
+            this.written = 0L;
+            this.closed = false;
+
+            this.fileName = fileName;
+            this.temporary = temporary;
+            this.expectedLength = expectedLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = this.in.read();
+            if (b < 0) {
+                this.commit();
+            } else if (this.out != null) {
+                try {
+                    this.out.write(b);
+                    this.written++;
+                } catch (final IOException ex) {
+                    this.abandon();
+                }
+                if (this.written > this.expectedLength) {
+                    this.abandon();  // The source is not what is expected.
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = this.in.read(b, off, len);
+            if (n < 0) {
+                this.commit();
+            } else if (n > 0 && this.out != null) {
+                try {
+                    this.out.write(b, off, n);
+                    this.written += n;
+                } catch (final IOException ex) {
+                    this.abandon();
+                }
+                if (this.written > this.expectedLength) {
+                    this.abandon();  // The source is not what is expected.
+                }
+            }
+            return n;
+        }
+
+        // Skipped bytes are read through so that the cache is complete.
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0L;
+            }
+            final byte[] skipped = new byte[(int) Math.min(n, (long) SKIP_BUFFER_SIZE)];
+            final int read = this.read(skipped, 0, skipped.length);
+            return read > 0 ? read : 0L;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            try {
+                this.abandon();  // Nothing to abandon if committed already.
+            } finally {
+                this.in.close();
+            }
+        }
+
+        private void commit() {
+            if (this.out == null) {
+                return;
+            }
+            if (this.written != this.expectedLength) {
+                this.abandon();  // Ended early, as a connection closed in the middle of a download.
+                return;
+            }
+            try {
+                this.out.close();
+                this.out = null;
+                FileCache.this.commit(this.fileName, this.temporary, this.written);
+            } catch (final IOException ex) {
+                this.abandon();
+            }
+        }
+
+        private void abandon() {
+            if (this.out != null) {
+                try {
+                    this.out.close();
+                } catch (final IOException ex) {
+                    // Passing through intentionally as the temporary file is deleted anyway.
+                }
+                this.out = null;
+            }
+            try {
+                Files.deleteIfExists(this.temporary);
+            } catch (final IOException ex) {
+                // Passing through intentionally. It is removed when FileCache is created next time.
+            }
+        }
+
+        private OutputStream out;
+        private long written;
+        private boolean closed;
+
+        private final String fileName;
+        private final Path temporary;
+        private final long expectedLength;
+    }
+
+    private static final String ENTRY_SUFFIX = ".cache";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int SKIP_BUFFER_SIZE = 8192;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private long totalBytes;
+
+    private final Path directory;
+    private final long maxTotalBytes;
+    private final LinkedHashMap<String, Long> entries;  // In the LRU order, from the least recently used.
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Optional;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+import org.embulk.spi.FileInput;
+
+// FileChannelFileInput reads local files through FileChannel, instead of FileInputStream wrapped in InputStreamFileInput.
+//
+// POSITIONAL_READ fills each Buffer with large positional reads. MEMORY_MAPPED maps the file by windows of "mappingSize"
+// bytes, and copies from the mapping into each Buffer without a read system call. MEMORY_MAPPED should not be used for files
+// which may be truncated while reading, for example on NFS, as accessing a truncated mapping crashes the JVM with SIGBUS.
+public class FileChannelFileInput implements FileInput {
+    public FileChannelFileInput(
+            final BufferAllocator allocator,
+            final Iterator<Path> paths,
+            final ReadMode readMode,
+            final int readSize,
+            final int mappingSize) {
+        if (readSize <= 0) {
+            throw new IllegalArgumentException("readSize must be positive.");
+        }
+        if (mappingSize <= 0) {
+            throw new IllegalArgumentException("mappingSize must be positive.");
+        }
+        this.currentPath = null;
+        this.currentChannel = null;
+        this.currentSize = 0L;
+        this.position = 0L;
+        this.mapping = null;
+
+        this.allocator = allocator;
+        this.paths = paths;
+        this.readMode = readMode;
+        this.readSize = readSize;
+        this.mappingSize = mappingSize;
+    }
+
+    public FileChannelFileInput(final BufferAllocator allocator, final Iterable<Path> paths, final ReadMode readMode) {
+        this(allocator, paths.iterator(), readMode, DEFAULT_READ_SIZE, DEFAULT_MAPPING_SIZE);
+    }
+
+    public FileChannelFileInput(final BufferAllocator allocator, final Iterable<Path> paths) {
+        this(allocator, paths, ReadMode.POSITIONAL_READ);
+    }
+
+    public enum ReadMode {
+        POSITIONAL_READ,
+        MEMORY_MAPPED,
+        ;
+    }
+
+    @Override
+    public boolean nextFile() {
+        try {
+            this.closeCurrent();
+            if (!this.paths.hasNext()) {
+                return false;
+            }
+            final Path path = this.paths.next();
+            this.currentChannel = FileChannel.open(path, StandardOpenOption.READ);
+            this.currentPath = path;
+            this.currentSize = this.currentChannel.size();
+            return true;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Buffer poll() {
+        if (this.currentChannel == null) {
+            throw new IllegalStateException("FileChannelFileInput#nextFile() must be called before poll().");
+        }
+        Buffer buffer = this.allocator.allocate(this.readSize);
+        try {
+            final int n;
+            if (this.readMode == ReadMode.MEMORY_MAPPED) {
+                n = this.copyFromMapping(buffer);
+            } else {
+                n = this.readPositional(buffer);
+            }
+            if (n < 0) {
+                return null;
+            }
+            buffer.limit(n);
+            final Buffer b = buffer;
+            buffer = null;
+            return b;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            if (buffer != null) {
+                buffer.release();
+                buffer = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.closeCurrent();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Optional<String> hintOfCurrentInputFileNameForLogging() {
+        if (this.currentPath != null) {
+            return Optional.of(this.currentPath.toString());
+        }
+        return Optional.empty();
+    }
+
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private int readPositional(final Buffer buffer) throws IOException {
+        final ByteBuffer destination = ByteBuffer.wrap(buffer.array(), buffer.offset(), buffer.capacity());
+        while (destination.hasRemaining()) {
+            final int n = this.currentChannel.read(destination, this.position);
+            if (n < 0) {
+                break;
+            }
+            this.position += n;
+        }
+        final int filled = destination.position() - buffer.offset();
+        return filled > 0 ? filled : -1;
+    }
+
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private int copyFromMapping(final Buffer buffer) throws IOException {
+        int filled = 0;
+        while (filled < buffer.capacity() && this.position < this.currentSize) {
+            if (this.mapping == null || !this.mapping.hasRemaining()) {
+                final long length = Math.min((long) this.mappingSize, this.currentSize - this.position);
+                this.mapping = this.currentChannel.map(FileChannel.MapMode.READ_ONLY, this.position, length);
+            }
+            final int length = Math.min(buffer.capacity() - filled, this.mapping.remaining());
+            this.mapping.get(buffer.array(), buffer.offset() + filled, length);
+            filled += length;
+            this.position += length;
+        }
+        return filled > 0 ? filled : -1;
+    }
+
+    private void closeCurrent() throws IOException {
+        // A MappedByteBuffer cannot be unmapped explicitly in Java 8. It is unmapped when it is garbage-collected.
+        this.mapping = null;
+        this.position = 0L;
+        this.currentSize = 0L;
+        this.currentPath = null;
+        if (this.currentChannel != null) {
+            final FileChannel channel = this.currentChannel;
+            this.currentChannel = null;
+            channel.close();
+        }
+    }
+
+    private static final int DEFAULT_READ_SIZE = 1024 * 1024;
+    private static final int DEFAULT_MAPPING_SIZE = 64 * 1024 * 1024;
+
+    private Path currentPath;
+    private FileChannel currentChannel;
+    private long currentSize;
+    private long position;
+    private MappedByteBuffer mapping;
+
+    private final BufferAllocator allocator;
+    private final Iterator<Path> paths;
+    private final ReadMode readMode;
+    private final int readSize;
+    private final int mappingSize;
+}
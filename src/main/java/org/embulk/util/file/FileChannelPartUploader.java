@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// FileChannelPartUploader is a MultipartUploadFileOutput.PartUploader which writes parts into a local file.
+//
+// It stands in for an object storage in local runs and tests. Parts are written at their offsets into a temporary file
+// next to the target by concurrent positional writes. The temporary file is moved to the target at complete() only when
+// every part number from 1 to "partCount" is written, as a missing part would leave a hole of zeros silently. It is
+// deleted at abort() or when the move fails. The move is atomic where the file system supports it, and falls back to
+// a plain move otherwise.
+public class FileChannelPartUploader implements MultipartUploadFileOutput.PartUploader {
+    public FileChannelPartUploader(final Path target) throws IOException {
+        final Path directory = target.toAbsolutePath().getParent();
+        this.target = target;
+        this.temporary = Files.createTempFile(directory, target.getFileName().toString() + ".", ".tmp");
+        this.channel = FileChannel.open(this.temporary, StandardOpenOption.WRITE);
+        this.writtenParts = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public void uploadPart(final int partNumber, final long offset, final ByteBuffer data) throws IOException {
+        final ByteBuffer source = data.duplicate();
+        long position = offset;
+        while (source.hasRemaining()) {
+            position += this.channel.write(source, position);
+        }
+        this.writtenParts.add(partNumber);
+    }
+
+    @Override
+    public void complete(final int partCount, final long totalBytes) throws IOException {
+        try {
+            final long size = this.channel.size();
+            if (size != totalBytes) {
+                throw new IOException("Uploaded " + size + " bytes in " + partCount + " parts, expected " + totalBytes + " bytes.");
+            }
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                if (!this.writtenParts.contains(partNumber)) {
+                    throw new IOException("Part " + partNumber + " of " + partCount + " parts is not uploaded.");
+                }
+            }
+            this.channel.force(true);
+        } catch (final IOException ex) {
+            this.abort();
+            throw ex;
+        }
+        try {
+            this.channel.close();
+            moveReplacing(this.temporary, this.target);
+        } catch (final IOException | RuntimeException ex) {
+            try {
+                Files.deleteIfExists(this.temporary);
+            } catch (final IOException | RuntimeException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void abort() throws IOException {
+        try {
+            this.channel.close();
+        } finally {
+            Files.deleteIfExists(this.temporary);
+        }
+    }
+
+    private static void moveReplacing(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private final Path target;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final Set<Integer> writtenParts;
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+// FileDigests are checksums and digests of one file, calculated by DigestingFileInput or DigestingFileOutput.
+public final class FileDigests {
+    FileDigests(final Map<DigestAlgorithm, byte[]> digests, final long bytes, final boolean complete) {
+        this.digests = Collections.unmodifiableMap(new EnumMap<>(digests));
+        this.bytes = bytes;
+        this.complete = complete;
+    }
+
+    public Optional<byte[]> getDigest(final DigestAlgorithm algorithm) {
+        final byte[] digest = this.digests.get(algorithm);
+        if (digest == null) {
+            return Optional.empty();
+        }
+        return Optional.of(digest.clone());
+    }
+
+    // Returns the digest in lowercase hexadecimal.
+    public Optional<String> getHexDigest(final DigestAlgorithm algorithm) {
+        final byte[] digest = this.digests.get(algorithm);
+        if (digest == null) {
+            return Optional.empty();
+        }
+        final StringBuilder builder = new StringBuilder(digest.length * 2);
+        for (final byte b : digest) {
+            builder.append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+        }
+        return Optional.of(builder.toString());
+    }
+
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    // False if the file was not read until its end, for example when nextFile() is called in the middle of the file.
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("FileDigests{bytes=").append(this.bytes);
+        for (final DigestAlgorithm algorithm : this.digests.keySet()) {
+            builder.append(", ").append(algorithm).append("=").append(this.getHexDigest(algorithm).orElse(""));
+        }
+        if (!this.complete) {
+            builder.append(", incomplete");
+        }
+        return builder.append("}").toString();
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map<DigestAlgorithm, byte[]> digests;
+    private final long bytes;
+    private final boolean complete;
+}
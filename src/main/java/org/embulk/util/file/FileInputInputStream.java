@@ -16,14 +16,18 @@
 
 package org.embulk.util.file;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import org.embulk.spi.Buffer;
 import org.embulk.spi.FileInput;
+import org.embulk.spi.FileOutput;
 
 public class FileInputInputStream extends InputStream {
     public FileInputInputStream(final FileInput in) {
         this.pos = 0;
         this.buffer = EmptyBuffer.getInstance();
+        this.shared = null;
 
         this.in = in;
     }
@@ -78,6 +82,75 @@ public class FileInputInputStream extends InputStream {
         return lengthToRead;
     }
 
+    // Returns the rest of the current Buffer, or the next Buffer, of the current file without copying.
+    //
+    // The caller takes the ownership of the returned Buffer, and it must release the Buffer. It returns null at the end of
+    // the current file. The returned Buffer may be a view over a Buffer from FileInput, which is released when all views
+    // over it are released.
+    public Buffer pollBuffer() {
+        while (this.pos >= this.buffer.limit()) {
+            if (!this.nextBuffer()) {
+                return null;
+            }
+        }
+        if (this.pos == 0 && this.shared == null) {
+            final Buffer whole = this.buffer;
+            this.buffer = EmptyBuffer.getInstance();
+            return whole;
+        }
+        final Buffer rest = this.slice(this.buffer.limit() - this.pos);
+        this.releaseBuffer();
+        return rest;
+    }
+
+    // Returns up to "maxLength" next bytes of the current file as a view over the current Buffer without copying.
+    //
+    // The caller must release the returned Buffer. It returns null at the end of the current file. The returned Buffer
+    // can be shorter than "maxLength" even before the end, as it never spans over multiple Buffers from FileInput.
+    public Buffer readBuffer(final int maxLength) {
+        if (maxLength <= 0) {
+            throw new IllegalArgumentException("maxLength must be positive.");
+        }
+        while (this.pos >= this.buffer.limit()) {
+            if (!this.nextBuffer()) {
+                return null;
+            }
+        }
+        final int remaining = this.buffer.limit() - this.pos;
+        if (remaining <= maxLength) {
+            return this.pollBuffer();
+        }
+        final Buffer head = this.slice(maxLength);
+        this.pos += maxLength;
+        return head;
+    }
+
+    // Writes all the rest of the current file into "out" directly from each Buffer, and returns the number of bytes.
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    public long transferTo(final OutputStream out) throws IOException {
+        long transferred = 0L;
+        while (this.pos < this.buffer.limit() || this.nextBuffer()) {
+            final int length = this.buffer.limit() - this.pos;
+            out.write(this.buffer.array(), this.buffer.offset() + this.pos, length);
+            transferred += length;
+            this.releaseBuffer();
+        }
+        return transferred;
+    }
+
+    // Adds all the rest of the current file to "out" by passing the ownership of each Buffer, and returns the number of bytes.
+    public long transferTo(final FileOutput out) {
+        long transferred = 0L;
+        while (true) {
+            final Buffer b = this.pollBuffer();
+            if (b == null) {
+                return transferred;
+            }
+            transferred += b.limit();
+            out.add(b);
+        }
+    }
+
     @Override
     public long skip(final long len) {
         final int skipped = this.read(null, 0, (int) Math.min(len, Integer.MAX_VALUE));
@@ -110,14 +183,27 @@ public class FileInputInputStream extends InputStream {
         return true;
     }
 
+    private Buffer slice(final int length) {
+        if (this.shared == null) {
+            this.shared = new SharedBuffer(this.buffer);
+        }
+        return this.shared.slice(this.pos, length);
+    }
+
     private void releaseBuffer() {
-        this.buffer.release();
+        if (this.shared != null) {
+            this.shared.release();
+            this.shared = null;
+        } else {
+            this.buffer.release();
+        }
         this.buffer = EmptyBuffer.getInstance();
         this.pos = 0;
     }
 
     private int pos;
     private Buffer buffer;
+    private SharedBuffer shared;
 
     private final FileInput in;
 }
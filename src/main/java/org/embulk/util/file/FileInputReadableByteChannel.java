@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ScatteringByteChannel;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+
+// FileInputReadableByteChannel reads a FileInput as a channel, file by file as FileInputInputStream does.
+//
+// Bytes are copied from each Buffer straight into the destination ByteBuffer, either heap or direct, without intermediate
+// arrays. read() returns -1 at the end of the current file, and nextFile() moves to the next file.
+public class FileInputReadableByteChannel implements ScatteringByteChannel {
+    public FileInputReadableByteChannel(final FileInput in) {
+        this.pos = 0;
+        this.buffer = EmptyBuffer.getInstance();
+        this.closed = false;
+
+        this.in = in;
+    }
+
+    public boolean nextFile() throws IOException {
+        this.ensureOpen();
+        this.releaseBuffer();
+        return this.in.nextFile();
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        this.ensureOpen();
+        return (int) this.readInto(dst);
+    }
+
+    @Override
+    public long read(final ByteBuffer[] dsts, final int offset, final int length) throws IOException {
+        if (offset < 0 || length < 0 || offset > dsts.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.ensureOpen();
+        long transferred = 0L;
+        for (int i = offset; i < offset + length; i++) {
+            final long n = this.readInto(dsts[i]);
+            if (n < 0) {
+                return transferred > 0 ? transferred : -1;
+            }
+            transferred += n;
+            if (dsts[i].hasRemaining()) {
+                break;
+            }
+        }
+        return transferred;
+    }
+
+    @Override
+    public long read(final ByteBuffer[] dsts) throws IOException {
+        return this.read(dsts, 0, dsts.length);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !this.closed;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.releaseBuffer();
+        this.in.close();
+    }
+
+    // Fills "dst" across Buffers until it is full, or the current file ends. Returns -1 only if the file ended before any byte.
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private long readInto(final ByteBuffer dst) {
+        long transferred = 0L;
+        while (dst.hasRemaining()) {
+            if (this.pos >= this.buffer.limit() && !this.nextBuffer()) {
+                return transferred > 0 ? transferred : -1;
+            }
+            final int n = Math.min(dst.remaining(), this.buffer.limit() - this.pos);
+            dst.put(this.buffer.array(), this.buffer.offset() + this.pos, n);
+            this.pos += n;
+            transferred += n;
+            if (this.pos >= this.buffer.limit()) {
+                this.releaseBuffer();
+            }
+        }
+        return transferred;
+    }
+
+    private boolean nextBuffer() {
+        this.releaseBuffer();
+        final Buffer b = this.in.poll();
+        if (b == null) {
+            return false;
+        }
+        this.buffer = b;
+        return true;
+    }
+
+    private void releaseBuffer() {
+        this.buffer.release();
+        this.buffer = EmptyBuffer.getInstance();
+        this.pos = 0;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (this.closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private int pos;
+    private Buffer buffer;
+    private boolean closed;
+
+    private final FileInput in;
+}
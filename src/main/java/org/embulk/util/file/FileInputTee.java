@@ -0,0 +1,394 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Optional;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+import org.embulk.spi.FileInput;
+
+// FileInputTee records a FileInput so that its files can be read by multiple readers, each from the beginning.
+//
+// The source FileInput is read only on demand, when a reader goes beyond what is recorded. Every reader gets the same
+// files and bytes in new Buffers from the allocator. Recorded bytes are kept in memory up to "memoryBudgetBytes". Beyond
+// that, the oldest bytes in memory are spilled to a temporary file, so that recent bytes, which readers running close
+// together need soon, stay in memory.
+//
+// Readers can be used on different threads. Only one reader at a time reads the source, while the other readers keep
+// reading what is recorded without waiting for the source.
+//
+// close() of a reader does not close the tee. close() of the tee closes the source, and deletes the temporary file. It
+// waits for a read of the source in progress, if any. Reads of the temporary file in progress are finished before the
+// file is closed. Readers throw IllegalStateException after close().
+public class FileInputTee implements AutoCloseable {
+    public FileInputTee(
+            final FileInput source,
+            final BufferAllocator allocator,
+            final long memoryBudgetBytes,
+            final Path temporaryDirectory) {
+        if (memoryBudgetBytes < 0) {
+            throw new IllegalArgumentException("memoryBudgetBytes must not be negative.");
+        }
+        this.sourceEnded = false;
+        this.memoryBytes = 0L;
+        this.spill = null;
+        this.spillPosition = 0L;
+        this.spillReaders = 0;
+        this.closed = false;
+
+        this.source = source;
+        this.allocator = allocator;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.temporaryDirectory = temporaryDirectory;
+        this.files = new ArrayList<>();
+        this.inMemory = new ArrayDeque<>();
+        this.sourceLock = new Object();
+    }
+
+    // Creates a reader which reads all the files from the beginning.
+    public FileInput newReader() {
+        synchronized (this) {
+            this.ensureOpen();
+        }
+        return new Reader();
+    }
+
+    public synchronized long getMemoryBytes() {
+        return this.memoryBytes;
+    }
+
+    public synchronized long getSpilledBytes() {
+        return this.spillPosition;
+    }
+
+    @Override
+    public void close() {
+        final FileChannel spill;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.files.clear();
+            this.inMemory.clear();
+            this.memoryBytes = 0L;
+            spill = this.spillReaders == 0 ? this.spill : null;  // Closed by the last reader of the spill file otherwise.
+        }
+        try {
+            synchronized (this.sourceLock) {
+                this.source.close();
+            }
+        } finally {
+            if (spill != null) {
+                try {
+                    spill.close();  // The temporary file is deleted on close.
+                } catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+    }
+
+    private final class Reader implements FileInput {
+        Reader() {
+            this.fileIndex = -1;
+            this.chunkIndex = 0;
+            this.current = null;
+        }
+
+        @Override
+        public boolean nextFile() {
+            this.fileIndex++;
+            this.chunkIndex = 0;
+            this.current = FileInputTee.this.fileAt(this.fileIndex);
+            return this.current != null;
+        }
+
+        @Override
+        public Buffer poll() {
+            if (this.current == null) {
+                throw new IllegalStateException("FileInputTee's FileInput#nextFile() must be called before poll().");
+            }
+            final Chunk chunk = FileInputTee.this.chunkAt(this.current, this.chunkIndex);
+            if (chunk == null) {
+                return null;
+            }
+            this.chunkIndex++;
+            return FileInputTee.this.toBuffer(chunk);
+        }
+
+        @Override
+        public void close() {
+            this.current = null;
+        }
+
+        @Override
+        public Optional<String> hintOfCurrentInputFileNameForLogging() {
+            if (this.current == null) {
+                return Optional.empty();
+            }
+            return this.current.hint;
+        }
+
+        private int fileIndex;
+        private int chunkIndex;
+        private RecordedFile current;
+    }
+
+    // Returns the recorded file at the index, reading the source until the file is opened, or null after the last file.
+    //
+    // The source is read holding only "sourceLock" so that other readers can read recorded files meanwhile. The lock of
+    // the tee itself is taken inside "sourceLock", never the other way around.
+    private RecordedFile fileAt(final int index) {
+        while (true) {
+            synchronized (this) {
+                this.ensureOpen();
+                if (index < this.files.size()) {
+                    return this.files.get(index);
+                }
+                if (this.sourceEnded) {
+                    return null;
+                }
+            }
+            synchronized (this.sourceLock) {
+                final RecordedFile last;
+                synchronized (this) {
+                    this.ensureOpen();
+                    if (index < this.files.size() || this.sourceEnded) {
+                        continue;  // Recorded by another reader meanwhile.
+                    }
+                    last = this.files.isEmpty() ? null : this.files.get(this.files.size() - 1);
+                }
+                if (last != null) {
+                    while (!last.complete) {  // Written only with "sourceLock" held.
+                        this.recordNext(last);  // The rest of the file is recorded for other readers before the next file.
+                    }
+                }
+                final boolean opened = this.source.nextFile();
+                final Optional<String> hint = opened ? this.source.hintOfCurrentInputFileNameForLogging() : Optional.empty();
+                synchronized (this) {
+                    this.ensureOpen();
+                    if (opened) {
+                        this.files.add(new RecordedFile(hint));
+                    } else {
+                        this.sourceEnded = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // Returns the chunk at the index in the file, reading the source if not recorded yet, or null at the end of the file.
+    private Chunk chunkAt(final RecordedFile file, final int index) {
+        while (true) {
+            synchronized (this) {
+                this.ensureOpen();
+                if (index < file.chunks.size()) {
+                    return file.chunks.get(index);
+                }
+                if (file.complete) {
+                    return null;
+                }
+            }
+            synchronized (this.sourceLock) {
+                synchronized (this) {
+                    this.ensureOpen();
+                    if (index < file.chunks.size() || file.complete) {
+                        continue;  // Recorded by another reader meanwhile.
+                    }
+                }
+                this.recordNext(file);
+            }
+        }
+    }
+
+    // Called with "sourceLock" held. Only the last file can be incomplete, which is the current file of the source.
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private void recordNext(final RecordedFile file) {
+        final Buffer buffer = this.source.poll();
+        final byte[] bytes;
+        if (buffer != null) {
+            try {
+                bytes = new byte[buffer.limit()];
+                System.arraycopy(buffer.array(), buffer.offset(), bytes, 0, bytes.length);
+            } finally {
+                buffer.release();
+            }
+        } else {
+            bytes = null;
+        }
+        synchronized (this) {
+            this.ensureOpen();
+            if (bytes == null) {
+                file.complete = true;
+                return;
+            }
+            if (bytes.length <= 0) {
+                return;
+            }
+            final Chunk chunk = new Chunk(bytes);
+            file.chunks.add(chunk);
+            this.inMemory.addLast(chunk);
+            this.memoryBytes += bytes.length;
+            this.spillOverBudget();
+        }
+    }
+
+    private void spillOverBudget() {
+        try {
+            while (this.memoryBytes > this.memoryBudgetBytes && !this.inMemory.isEmpty()) {
+                if (this.spill == null) {
+                    final Path path = Files.createTempFile(this.temporaryDirectory, "embulk-util-file-tee", ".tmp");
+                    this.spill = FileChannel.open(
+                            path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+                }
+                final Chunk oldest = this.inMemory.pollFirst();
+                final byte[] bytes = oldest.bytes;
+                final ByteBuffer source = ByteBuffer.wrap(bytes);
+                long position = this.spillPosition;
+                while (source.hasRemaining()) {
+                    position += this.spill.write(source, position);
+                }
+                oldest.spilled(this.spillPosition);
+                this.spillPosition = position;
+                this.memoryBytes -= bytes.length;
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Copied out of the lock. A chunk spilled meanwhile can still be copied from the array taken before it was spilled.
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private Buffer toBuffer(final Chunk chunk) {
+        final byte[] bytes;
+        final long position;
+        final FileChannel spill;
+        synchronized (this) {
+            this.ensureOpen();
+            bytes = chunk.bytes;
+            position = chunk.position;
+            spill = this.spill;
+            if (bytes == null) {
+                this.spillReaders++;  // The spill file is not closed until this read ends.
+            }
+        }
+        Buffer buffer = null;
+        try {
+            buffer = this.allocator.allocate(chunk.length);
+            if (bytes != null) {
+                buffer.setBytes(0, bytes, 0, chunk.length);
+            } else {
+                final ByteBuffer destination = ByteBuffer.wrap(buffer.array(), buffer.offset(), chunk.length);
+                long readPosition = position;
+                while (destination.hasRemaining()) {
+                    final int n = spill.read(destination, readPosition);
+                    if (n < 0) {
+                        throw new IOException("Unexpected end of the spill file of FileInputTee.");
+                    }
+                    readPosition += n;
+                }
+            }
+            buffer.limit(chunk.length);
+            final Buffer b = buffer;
+            buffer = null;
+            return b;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            if (buffer != null) {
+                buffer.release();
+            }
+            if (bytes == null) {
+                this.endSpillRead();
+            }
+        }
+    }
+
+    private synchronized void endSpillRead() {
+        this.spillReaders--;
+        if (this.closed && this.spillReaders == 0) {
+            try {
+                this.spill.close();  // The temporary file is deleted on close.
+            } catch (final IOException ex) {
+                // Passing through intentionally as the read itself is done. close() of the tee has returned already.
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("FileInputTee is already closed.");
+        }
+    }
+
+    private static final class RecordedFile {
+        RecordedFile(final Optional<String> hint) {
+            this.chunks = new ArrayList<>();
+            this.complete = false;
+            this.hint = hint;
+        }
+
+        private boolean complete;
+
+        private final ArrayList<Chunk> chunks;
+        private final Optional<String> hint;
+    }
+
+    // A chunk is the bytes of one Buffer from the source, either in memory, or at a position in the spill file.
+    private static final class Chunk {
+        Chunk(final byte[] bytes) {
+            this.bytes = bytes;
+            this.position = -1L;
+            this.length = bytes.length;
+        }
+
+        void spilled(final long position) {
+            this.position = position;
+            this.bytes = null;
+        }
+
+        private byte[] bytes;
+        private long position;
+
+        private final int length;
+    }
+
+    private boolean sourceEnded;
+    private long memoryBytes;
+    private FileChannel spill;
+    private long spillPosition;
+    private int spillReaders;
+    private boolean closed;
+
+    private final FileInput source;
+    private final BufferAllocator allocator;
+    private final long memoryBudgetBytes;
+    private final Path temporaryDirectory;
+    private final ArrayList<RecordedFile> files;
+    private final ArrayDeque<Chunk> inMemory;  // Chunks in memory in the recorded order, from the oldest.
+    private final Object sourceLock;  // Held while reading the source.
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+// FileIoMetrics receives measurements from the Instrumented* decorators.
+//
+// All methods do nothing by default so that an implementation can pick what it needs. The decorators do not wrap at all
+// with NOOP so that disabled metrics cost nothing. FileIoStatistics is an implementation which is exposed also as an MBean.
+public interface FileIoMetrics {
+    // Called when a file is opened, with the time taken to open it.
+    default void fileOpened(final long nanos) {
+    }
+
+    // Called when a Buffer is polled or added, or a read or write is called on a stream, with the time taken for it.
+    // "capacity" is the capacity of the Buffer, or the length requested to read or write.
+    default void bufferTransferred(final int bytes, final int capacity, final long nanos) {
+    }
+
+    // Called when a file is read until its end, or finished to be written, with its size and the time since it was opened.
+    default void fileCompleted(final long bytes, final long nanos) {
+    }
+
+    FileIoMetrics NOOP = new FileIoMetrics() {};
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+// FileIoStatistics accumulates FileIoMetrics with low contention, and exposes them through JMX once registered.
+//
+// One instance can be shared by multiple decorators, for example by all inputs of a task, to sum them up.
+public class FileIoStatistics implements FileIoMetrics, FileIoStatisticsMBean {
+    public FileIoStatistics() {
+        this.objectName = null;
+
+        this.openedFiles = new LongAdder();
+        this.openNanos = new LongAdder();
+        this.maxOpenNanos = new LongAccumulator(Long::max, 0L);
+        this.buffers = new LongAdder();
+        this.bytes = new LongAdder();
+        this.transferNanos = new LongAdder();
+        this.maxTransferNanos = new LongAccumulator(Long::max, 0L);
+        this.fillHistogram = new LongAdder[FILL_BUCKETS];
+        for (int i = 0; i < FILL_BUCKETS; i++) {
+            this.fillHistogram[i] = new LongAdder();
+        }
+        this.completedFiles = new LongAdder();
+        this.completedFileBytes = new LongAdder();
+        this.completedFileNanos = new LongAdder();
+    }
+
+    @Override
+    public void fileOpened(final long nanos) {
+        this.openedFiles.increment();
+        this.openNanos.add(nanos);
+        this.maxOpenNanos.accumulate(nanos);
+    }
+
+    @Override
+    public void bufferTransferred(final int bytes, final int capacity, final long nanos) {
+        this.buffers.increment();
+        this.bytes.add(bytes);
+        this.transferNanos.add(nanos);
+        this.maxTransferNanos.accumulate(nanos);
+        if (capacity > 0) {
+            this.fillHistogram[(int) Math.min(FILL_BUCKETS - 1, (long) bytes * FILL_BUCKETS / capacity)].increment();
+        }
+    }
+
+    @Override
+    public void fileCompleted(final long bytes, final long nanos) {
+        this.completedFiles.increment();
+        this.completedFileBytes.add(bytes);
+        this.completedFileNanos.add(nanos);
+    }
+
+    // Registers this to the platform MBeanServer as "org.embulk.util.file:type=FileIoStatistics,name=<name>".
+    public synchronized void register(final String name) {
+        if (this.objectName != null) {
+            throw new IllegalStateException("FileIoStatistics is already registered as " + this.objectName);
+        }
+        final ObjectName objectName;
+        try {
+            objectName = new ObjectName("org.embulk.util.file:type=FileIoStatistics,name=" + ObjectName.quote(name));
+        } catch (final MalformedObjectNameException ex) {
+            throw new IllegalArgumentException("Invalid name for FileIoStatistics: " + name, ex);
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (final InstanceAlreadyExistsException ex) {
+            throw new IllegalStateException("FileIoStatistics is already registered as " + objectName, ex);
+        } catch (final JMException ex) {
+            throw new IllegalStateException("Failed to register FileIoStatistics as " + objectName, ex);
+        }
+        this.objectName = objectName;
+    }
+
+    public synchronized void unregister() {
+        if (this.objectName == null) {
+            return;
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(this.objectName);
+        } catch (final InstanceNotFoundException ex) {
+            // Passing through intentionally as it has been unregistered by someone else.
+        } catch (final JMException ex) {
+            throw new IllegalStateException("Failed to unregister FileIoStatistics as " + this.objectName, ex);
+        } finally {
+            this.objectName = null;
+        }
+    }
+
+    @Override
+    public long getOpenedFiles() {
+        return this.openedFiles.sum();
+    }
+
+    @Override
+    public long getOpenNanos() {
+        return this.openNanos.sum();
+    }
+
+    @Override
+    public long getMaxOpenNanos() {
+        return this.maxOpenNanos.get();
+    }
+
+    @Override
+    public long getBuffers() {
+        return this.buffers.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    @Override
+    public long getTransferNanos() {
+        return this.transferNanos.sum();
+    }
+
+    @Override
+    public long getMaxTransferNanos() {
+        return this.maxTransferNanos.get();
+    }
+
+    @Override
+    public long[] getFillHistogram() {
+        final long[] histogram = new long[FILL_BUCKETS];
+        for (int i = 0; i < FILL_BUCKETS; i++) {
+            histogram[i] = this.fillHistogram[i].sum();
+        }
+        return histogram;
+    }
+
+    @Override
+    public long getCompletedFiles() {
+        return this.completedFiles.sum();
+    }
+
+    @Override
+    public long getCompletedFileBytes() {
+        return this.completedFileBytes.sum();
+    }
+
+    @Override
+    public long getCompletedFileNanos() {
+        return this.completedFileNanos.sum();
+    }
+
+    @Override
+    public double getBytesPerSecondPerFile() {
+        final long nanos = this.completedFileNanos.sum();
+        if (nanos <= 0) {
+            return 0.0;
+        }
+        return this.completedFileBytes.sum() * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public void reset() {
+        this.openedFiles.reset();
+        this.openNanos.reset();
+        this.maxOpenNanos.reset();
+        this.buffers.reset();
+        this.bytes.reset();
+        this.transferNanos.reset();
+        this.maxTransferNanos.reset();
+        for (final LongAdder bucket : this.fillHistogram) {
+            bucket.reset();
+        }
+        this.completedFiles.reset();
+        this.completedFileBytes.reset();
+        this.completedFileNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "FileIoStatistics{"
+                + "openedFiles=" + this.getOpenedFiles()
+                + ", openNanos=" + this.getOpenNanos()
+                + ", buffers=" + this.getBuffers()
+                + ", bytes=" + this.getBytes()
+                + ", transferNanos=" + this.getTransferNanos()
+                + ", maxTransferNanos=" + this.getMaxTransferNanos()
+                + ", completedFiles=" + this.getCompletedFiles()
+                + ", bytesPerSecondPerFile=" + this.getBytesPerSecondPerFile()
+                + "}";
+    }
+
+    private static final int FILL_BUCKETS = 10;
+
+    private ObjectName objectName;
+
+    private final LongAdder openedFiles;
+    private final LongAdder openNanos;
+    private final LongAccumulator maxOpenNanos;
+    private final LongAdder buffers;
+    private final LongAdder bytes;
+    private final LongAdder transferNanos;
+    private final LongAccumulator maxTransferNanos;
+    private final LongAdder[] fillHistogram;
+    private final LongAdder completedFiles;
+    private final LongAdder completedFileBytes;
+    private final LongAdder completedFileNanos;
+}
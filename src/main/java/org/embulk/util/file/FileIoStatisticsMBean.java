@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+// FileIoStatisticsMBean is the standard MBean interface of FileIoStatistics. Times are in nanoseconds.
+@SuppressWarnings("checkstyle:AbbreviationAsWordInName")  // A standard MBean interface must be named "<class name>MBean".
+public interface FileIoStatisticsMBean {
+    long getOpenedFiles();
+
+    long getOpenNanos();
+
+    long getMaxOpenNanos();
+
+    long getBuffers();
+
+    long getBytes();
+
+    long getTransferNanos();
+
+    long getMaxTransferNanos();
+
+    // The number of Buffers by how full they are, in 10% steps from [0%, 10%) up to [90%, 100%].
+    long[] getFillHistogram();
+
+    long getCompletedFiles();
+
+    long getCompletedFileBytes();
+
+    long getCompletedFileNanos();
+
+    double getBytesPerSecondPerFile();
+
+    void reset();
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+import org.embulk.spi.FileOutput;
+
+// FileOutputWritableByteChannel writes into a FileOutput as a channel, as FileOutputOutputStream does as a stream.
+//
+// Bytes are copied from the source ByteBuffer, either heap or direct, straight into Buffers from the allocator without
+// intermediate arrays. A Buffer is added to the FileOutput when it is full, or at flush(), finish() and close().
+public class FileOutputWritableByteChannel implements GatheringByteChannel {
+    public FileOutputWritableByteChannel(
+            final FileOutput out,
+            final BufferAllocator allocator,
+            final FileOutputOutputStream.CloseMode closeMode) {
+        this.pos = 0;
+        this.buffer = allocator.allocate();
+        this.closed = false;
+
+        this.out = out;
+        this.allocator = allocator;
+        this.closeMode = closeMode;
+    }
+
+    public void nextFile() throws IOException {
+        this.ensureOpen();
+        this.out.nextFile();
+    }
+
+    public void finish() throws IOException {
+        this.ensureOpen();
+        this.doFlush();
+        this.out.finish();
+    }
+
+    public void flush() throws IOException {
+        this.ensureOpen();
+        if (this.doFlush()) {
+            this.buffer = this.allocator.allocate();
+        }
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        this.ensureOpen();
+        return (int) this.writeFrom(src);
+    }
+
+    @Override
+    public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+        if (offset < 0 || length < 0 || offset > srcs.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.ensureOpen();
+        long transferred = 0L;
+        for (int i = offset; i < offset + length; i++) {
+            transferred += this.writeFrom(srcs[i]);
+        }
+        return transferred;
+    }
+
+    @Override
+    public long write(final ByteBuffer[] srcs) throws IOException {
+        return this.write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !this.closed;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        switch (this.closeMode) {
+            case FLUSH:
+                this.doFlush();
+                break;
+            case FLUSH_FINISH:
+                this.doFlush();
+                this.out.finish();
+                break;
+            case FLUSH_FINISH_CLOSE:
+                this.doFlush();
+                this.out.finish();
+                this.out.close();
+                break;
+            case CLOSE:
+                this.out.close();
+                break;
+            default:  // Never default as all enums are listed.
+        }
+        this.buffer.release();
+        this.buffer = EmptyBuffer.getInstance();
+        this.pos = 0;
+    }
+
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private long writeFrom(final ByteBuffer src) {
+        long transferred = 0L;
+        while (src.hasRemaining()) {
+            final int n = Math.min(src.remaining(), this.buffer.capacity() - this.pos);
+            src.get(this.buffer.array(), this.buffer.offset() + this.pos, n);
+            this.pos += n;
+            transferred += n;
+            if (this.pos >= this.buffer.capacity()) {
+                this.doFlush();
+                this.buffer = this.allocator.allocate();
+            }
+        }
+        return transferred;
+    }
+
+    private boolean doFlush() {
+        if (this.pos > 0) {
+            this.buffer.limit(this.pos);
+            this.out.add(this.buffer);
+            this.buffer = EmptyBuffer.getInstance();
+            this.pos = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (this.closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private int pos;
+    private Buffer buffer;
+    private boolean closed;
+
+    private final FileOutput out;
+    private final BufferAllocator allocator;
+    private final FileOutputOutputStream.CloseMode closeMode;
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+
+// GatheringChannelFileOutput writes Buffers into GatheringByteChannels, as OutputStreamFileOutput does into OutputStreams.
+//
+// Instead of one write per Buffer, Buffers added are queued until "maxQueuedBuffers" Buffers or "maxQueuedBytes" bytes,
+// and then written by one gathering write. Queued Buffers are written also at nextFile() and finish().
+//
+// Queued Buffers are released after they are written, or when the write fails. Buffers still queued at close() without
+// finish() are released without being written.
+public class GatheringChannelFileOutput implements FileOutput {
+    public GatheringChannelFileOutput(final Provider provider, final int maxQueuedBuffers, final long maxQueuedBytes) {
+        if (maxQueuedBuffers <= 0) {
+            throw new IllegalArgumentException("maxQueuedBuffers must be positive.");
+        }
+        if (maxQueuedBytes <= 0) {
+            throw new IllegalArgumentException("maxQueuedBytes must be positive.");
+        }
+        this.current = null;
+        this.queuedBytes = 0L;
+
+        this.provider = provider;
+        this.maxQueuedBuffers = maxQueuedBuffers;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.queued = new ArrayList<>(maxQueuedBuffers);
+    }
+
+    public GatheringChannelFileOutput(final Provider provider) {
+        this(provider, DEFAULT_MAX_QUEUED_BUFFERS, DEFAULT_MAX_QUEUED_BYTES);
+    }
+
+    public interface Provider extends Closeable {
+        GatheringByteChannel openNext() throws IOException;
+
+        void finish() throws IOException;
+
+        void close() throws IOException;
+    }
+
+    @Override
+    public void nextFile() {
+        this.closeCurrent();
+        try {
+            this.current = this.provider.openNext();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void add(final Buffer buffer) {
+        if (this.current == null) {
+            buffer.release();
+            throw new IllegalStateException("GatheringChannelFileOutput#nextFile() must be called before add().");
+        }
+        if (buffer.limit() <= 0) {
+            buffer.release();
+            return;
+        }
+        this.queued.add(buffer);
+        this.queuedBytes += buffer.limit();
+        if (this.queued.size() >= this.maxQueuedBuffers || this.queuedBytes >= this.maxQueuedBytes) {
+            this.writeQueued();
+        }
+    }
+
+    @Override
+    public void finish() {
+        this.closeCurrent();
+        try {
+            this.provider.finish();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.releaseQueued();
+            if (this.current != null) {
+                final GatheringByteChannel channel = this.current;
+                this.current = null;
+                channel.close();
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            try {
+                this.provider.close();
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private void writeQueued() {
+        if (this.queued.isEmpty()) {
+            return;
+        }
+        try {
+            final ByteBuffer[] sources = new ByteBuffer[this.queued.size()];
+            for (int i = 0; i < sources.length; i++) {
+                final Buffer buffer = this.queued.get(i);
+                sources[i] = ByteBuffer.wrap(buffer.array(), buffer.offset(), buffer.limit());
+            }
+            // A gathering write may write only a part of the sources. It continues from the first source with bytes remaining.
+            int first = 0;
+            while (first < sources.length) {
+                this.current.write(sources, first, sources.length - first);
+                while (first < sources.length && !sources[first].hasRemaining()) {
+                    first++;
+                }
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            this.releaseQueued();
+        }
+    }
+
+    private void releaseQueued() {
+        for (final Buffer buffer : this.queued) {
+            buffer.release();
+        }
+        this.queued.clear();
+        this.queuedBytes = 0L;
+    }
+
+    private void closeCurrent() {
+        if (this.current == null) {
+            return;
+        }
+        try {
+            this.writeQueued();
+        } finally {
+            final GatheringByteChannel channel = this.current;
+            this.current = null;
+            try {
+                channel.close();
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static final int DEFAULT_MAX_QUEUED_BUFFERS = 64;
+    private static final long DEFAULT_MAX_QUEUED_BYTES = 1024L * 1024L;
+
+    private GatheringByteChannel current;
+    private long queuedBytes;
+
+    private final Provider provider;
+    private final int maxQueuedBuffers;
+    private final long maxQueuedBytes;
+    private final ArrayList<Buffer> queued;
+}
@@ -22,16 +22,31 @@ import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.embulk.spi.Buffer;
 import org.embulk.spi.BufferAllocator;
 import org.embulk.spi.FileInput;
 
 public class InputStreamFileInput implements FileInput {
-    public InputStreamFileInput(final BufferAllocator allocator, final Provider provider) {
+    public InputStreamFileInput(
+            final BufferAllocator allocator,
+            final Provider provider,
+            final FillPolicy fillPolicy,
+            final BufferSizing bufferSizing) {
         this.current = null;
 
         this.allocator = allocator;
         this.provider = provider;
+        this.fillPolicy = fillPolicy;
+        this.sizer = bufferSizing.newSizer();
+    }
+
+    public InputStreamFileInput(final BufferAllocator allocator, final Provider provider, final FillPolicy fillPolicy) {
+        this(allocator, provider, fillPolicy, BufferSizing.fixed());
+    }
+
+    public InputStreamFileInput(final BufferAllocator allocator, final Provider provider) {
+        this(allocator, provider, FillPolicy.singleRead());
     }
 
     public InputStreamFileInput(final BufferAllocator allocator, final Opener opener) {
@@ -110,6 +125,237 @@ public class InputStreamFileInput implements FileInput {
         private final Optional<String> hintOfCurrentInputFileNameForLogging;
     }
 
+    // FillPolicy decides how many times poll() may call InputStream#read to fill one Buffer.
+    //
+    // Streams such as sockets and decompressors often return only a few hundred bytes per read. Filling a Buffer with
+    // multiple reads reduces the number of nearly empty Buffers passed to decoders and parsers downstream.
+    //
+    // The time limit is checked only between reads. It cannot interrupt a blocking read by itself.
+    public static final class FillPolicy {
+        private FillPolicy(final int minimumFillBytes, final long timeLimitNanos) {
+            this.minimumFillBytes = minimumFillBytes;
+            this.timeLimitNanos = timeLimitNanos;
+        }
+
+        // Calls InputStream#read only once for each Buffer, which is the traditional behavior of InputStreamFileInput.
+        public static FillPolicy singleRead() {
+            return SINGLE_READ;
+        }
+
+        public static FillPolicy toCapacity() {
+            return TO_CAPACITY;
+        }
+
+        // Keeps reading until at least minimumFillBytes are filled, or the Buffer is full.
+        public static FillPolicy atLeast(final int minimumFillBytes) {
+            if (minimumFillBytes <= 0) {
+                throw new IllegalArgumentException("minimumFillBytes must be positive.");
+            }
+            return new FillPolicy(minimumFillBytes, NO_TIME_LIMIT);
+        }
+
+        // Stops reading for the Buffer once the time limit passes since the first read for the Buffer.
+        public FillPolicy withTimeLimit(final long timeLimit, final TimeUnit unit) {
+            if (timeLimit < 0) {
+                throw new IllegalArgumentException("timeLimit must not be negative.");
+            }
+            return new FillPolicy(this.minimumFillBytes, unit.toNanos(timeLimit));
+        }
+
+        public int getMinimumFillBytes() {
+            return this.minimumFillBytes;
+        }
+
+        public Optional<Long> getTimeLimitNanos() {
+            if (this.timeLimitNanos == NO_TIME_LIMIT) {
+                return Optional.empty();
+            }
+            return Optional.of(this.timeLimitNanos);
+        }
+
+        @Override
+        public String toString() {
+            if (this.timeLimitNanos == NO_TIME_LIMIT) {
+                return "FillPolicy{minimumFillBytes=" + this.minimumFillBytes + "}";
+            }
+            return "FillPolicy{minimumFillBytes=" + this.minimumFillBytes + ", timeLimitNanos=" + this.timeLimitNanos + "}";
+        }
+
+        // Reads into the Buffer from its offset, and returns the number of bytes read, or -1 if nothing is read at the end.
+        int fill(final InputStream inputStream, final Buffer buffer) throws IOException {
+            return this.fill(inputStream, buffer, buffer.capacity());
+        }
+
+        // Reads up to "maxLength" bytes even if the Buffer has more capacity.
+        @SuppressWarnings("deprecation")  // Calling Buffer#array().
+        int fill(final InputStream inputStream, final Buffer buffer, final int maxLength) throws IOException {
+            final int capacity = Math.min(buffer.capacity(), maxLength);
+            final int target = Math.min(capacity, this.minimumFillBytes);
+            final long startedNanos = (this.timeLimitNanos == NO_TIME_LIMIT) ? 0L : System.nanoTime();
+
+            int filled = 0;
+            while (true) {
+                final int n = inputStream.read(buffer.array(), buffer.offset() + filled, capacity - filled);
+                if (n < 0) {
+                    return filled > 0 ? filled : -1;
+                }
+                filled += n;
+                if (filled >= target || n == 0) {
+                    return filled;
+                }
+                if (this.timeLimitNanos != NO_TIME_LIMIT && System.nanoTime() - startedNanos >= this.timeLimitNanos) {
+                    return filled;
+                }
+            }
+        }
+
+        private static final long NO_TIME_LIMIT = -1L;
+
+        private static final FillPolicy SINGLE_READ = new FillPolicy(1, NO_TIME_LIMIT);
+        private static final FillPolicy TO_CAPACITY = new FillPolicy(Integer.MAX_VALUE, NO_TIME_LIMIT);
+
+        private final int minimumFillBytes;
+        private final long timeLimitNanos;
+    }
+
+    // BufferSizing decides the size of the Buffer for each poll().
+    //
+    // fixed() allocates the default size of BufferAllocator, which is the traditional behavior of InputStreamFileInput.
+    //
+    // adaptive() changes the read unit between the minimum and the maximum sizes by how the source behaves. The unit is
+    // doubled after Buffers are filled up quickly in a row, as a fast source such as a local disk is read in fewer larger
+    // reads. It is halved after Buffers are filled up to a half, or filled slower than the slow fill threshold, in
+    // a row, as a trickling source such as a slow socket should not keep a large Buffer waiting to be filled. Buffers are
+    // allocated by BufferAllocator#allocate(int) with the unit, and no more than the unit is read into each Buffer.
+    public static final class BufferSizing {
+        private BufferSizing(final int minimumSize, final int maximumSize, final long slowFillNanos) {
+            this.minimumSize = minimumSize;
+            this.maximumSize = maximumSize;
+            this.slowFillNanos = slowFillNanos;
+        }
+
+        public static BufferSizing fixed() {
+            return FIXED;
+        }
+
+        // Starts from the minimum size.
+        public static BufferSizing adaptive(final int minimumSize, final int maximumSize) {
+            if (minimumSize <= 0) {
+                throw new IllegalArgumentException("minimumSize must be positive.");
+            }
+            if (maximumSize < minimumSize) {
+                throw new IllegalArgumentException("maximumSize must not be less than minimumSize.");
+            }
+            return new BufferSizing(minimumSize, maximumSize, DEFAULT_SLOW_FILL_NANOS);
+        }
+
+        public BufferSizing withSlowFillThreshold(final long slowFillThreshold, final TimeUnit unit) {
+            if (this.minimumSize == FIXED_SIZE) {
+                throw new IllegalStateException("The slow fill threshold is only for adaptive BufferSizing.");
+            }
+            if (slowFillThreshold <= 0) {
+                throw new IllegalArgumentException("slowFillThreshold must be positive.");
+            }
+            return new BufferSizing(this.minimumSize, this.maximumSize, unit.toNanos(slowFillThreshold));
+        }
+
+        public boolean isAdaptive() {
+            return this.minimumSize != FIXED_SIZE;
+        }
+
+        public int getMinimumSize() {
+            return this.minimumSize;
+        }
+
+        public int getMaximumSize() {
+            return this.maximumSize;
+        }
+
+        public long getSlowFillNanos() {
+            return this.slowFillNanos;
+        }
+
+        @Override
+        public String toString() {
+            if (!this.isAdaptive()) {
+                return "BufferSizing{fixed}";
+            }
+            return "BufferSizing{minimumSize=" + this.minimumSize
+                    + ", maximumSize=" + this.maximumSize
+                    + ", slowFillNanos=" + this.slowFillNanos + "}";
+        }
+
+        Sizer newSizer() {
+            return new Sizer(this);
+        }
+
+        // Sizer keeps the current read unit of one InputStreamFileInput.
+        static final class Sizer {
+            private Sizer(final BufferSizing sizing) {
+                this.size = sizing.minimumSize;
+                this.ceiling = sizing.maximumSize;
+                this.ceilingResetCountdown = 0;
+                this.quickFullFills = 0;
+                this.slowFills = 0;
+
+                this.sizing = sizing;
+            }
+
+            boolean isAdaptive() {
+                return this.sizing.isAdaptive();
+            }
+
+            int size() {
+                return this.size;
+            }
+
+            void observe(final int filled, final long nanos) {
+                if (this.ceilingResetCountdown > 0 && --this.ceilingResetCountdown == 0) {
+                    this.ceiling = this.sizing.maximumSize;
+                }
+                if (filled >= this.size && nanos < this.sizing.slowFillNanos) {
+                    this.slowFills = 0;
+                    if (++this.quickFullFills >= GROW_AFTER && this.size < this.ceiling) {
+                        this.size = (int) Math.min((long) this.size * 2, (long) this.ceiling);
+                        this.quickFullFills = 0;
+                    }
+                } else if (filled <= this.size / 2 || nanos >= this.sizing.slowFillNanos) {
+                    this.quickFullFills = 0;
+                    if (++this.slowFills >= SHRINK_AFTER && this.size > this.sizing.minimumSize) {
+                        // Not to grow back soon to the size just found too large, which would only repeat growing and shrinking.
+                        this.size = Math.max(this.size / 2, this.sizing.minimumSize);
+                        this.ceiling = this.size;
+                        this.ceilingResetCountdown = CEILING_RESET_POLLS;
+                        this.slowFills = 0;
+                    }
+                } else {
+                    this.quickFullFills = 0;
+                    this.slowFills = 0;
+                }
+            }
+
+            private int size;
+            private int ceiling;
+            private int ceilingResetCountdown;
+            private int quickFullFills;
+            private int slowFills;
+
+            private final BufferSizing sizing;
+        }
+
+        private static final int FIXED_SIZE = -1;
+        private static final int GROW_AFTER = 2;
+        private static final int SHRINK_AFTER = 2;
+        private static final int CEILING_RESET_POLLS = 64;
+        private static final long DEFAULT_SLOW_FILL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+        private static final BufferSizing FIXED = new BufferSizing(FIXED_SIZE, FIXED_SIZE, DEFAULT_SLOW_FILL_NANOS);
+
+        private final int minimumSize;
+        private final int maximumSize;
+        private final long slowFillNanos;
+    }
+
     @Override
     public boolean nextFile() {
         try {
@@ -124,16 +370,18 @@ public class InputStreamFileInput implements FileInput {
         }
     }
 
-    @SuppressWarnings("deprecation")  // Calling Buffer#array().
     @Override
     public Buffer poll() {
         if (this.current == null || this.current.getInputStream() == null) {
             throw new IllegalStateException("InputStreamFileInput#nextFile() must be called before poll().");
         }
+        if (this.sizer.isAdaptive()) {
+            return this.pollAdaptively();
+        }
         // TODO: Clean it up and "final".
         Buffer buffer = this.allocator.allocate();
         try {
-            final int n = this.current.getInputStream().read(buffer.array(), buffer.offset(), buffer.capacity());
+            final int n = this.fillPolicy.fill(this.current.getInputStream(), buffer);
             if (n < 0) {
                 return null;
             }
@@ -180,6 +428,30 @@ public class InputStreamFileInput implements FileInput {
         }
     }
 
+    private Buffer pollAdaptively() {
+        final int size = this.sizer.size();
+        Buffer buffer = this.allocator.allocate(size);
+        try {
+            final long startedNanos = System.nanoTime();
+            final int n = this.fillPolicy.fill(this.current.getInputStream(), buffer, size);
+            if (n < 0) {
+                return null;
+            }
+            this.sizer.observe(n, System.nanoTime() - startedNanos);
+            buffer.limit(n);
+            final Buffer b = buffer;
+            buffer = null;
+            return b;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            if (buffer != null) {
+                buffer.release();
+                buffer = null;
+            }
+        }
+    }
+
     private static class OpenerProvider implements Provider {
         public OpenerProvider(final Opener opener) {
             this.opener = opener;
@@ -231,4 +503,6 @@ public class InputStreamFileInput implements FileInput {
 
     private final BufferAllocator allocator;
     private final Provider provider;
+    private final FillPolicy fillPolicy;
+    private final BufferSizing.Sizer sizer;
 }
@@ -21,6 +21,18 @@ import org.embulk.spi.BufferAllocator;
 import org.embulk.spi.TransactionalFileInput;
 
 public abstract class InputStreamTransactionalFileInput extends InputStreamFileInput implements TransactionalFileInput {
+    public InputStreamTransactionalFileInput(
+            final BufferAllocator allocator,
+            final Provider provider,
+            final FillPolicy fillPolicy,
+            final BufferSizing bufferSizing) {
+        super(allocator, provider, fillPolicy, bufferSizing);
+    }
+
+    public InputStreamTransactionalFileInput(final BufferAllocator allocator, final Provider provider, final FillPolicy fillPolicy) {
+        super(allocator, provider, fillPolicy);
+    }
+
     public InputStreamTransactionalFileInput(final BufferAllocator allocator, final Provider provider) {
         super(allocator, provider);
     }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.Optional;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+
+// InstrumentedFileInput measures nextFile() as opening a file, and poll() as transferring a Buffer, into FileIoMetrics.
+public class InstrumentedFileInput implements FileInput {
+    public InstrumentedFileInput(final FileInput delegate, final FileIoMetrics metrics) {
+        this.inFile = false;
+        this.fileStartedNanos = 0L;
+        this.fileBytes = 0L;
+
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    // Returns the FileInput as-is without measuring when the metrics are FileIoMetrics.NOOP.
+    public static FileInput wrap(final FileInput delegate, final FileIoMetrics metrics) {
+        if (metrics == FileIoMetrics.NOOP) {
+            return delegate;
+        }
+        return new InstrumentedFileInput(delegate, metrics);
+    }
+
+    @Override
+    public boolean nextFile() {
+        this.inFile = false;
+        final long startedNanos = System.nanoTime();
+        final boolean hasNext = this.delegate.nextFile();
+        if (hasNext) {
+            this.metrics.fileOpened(System.nanoTime() - startedNanos);
+            this.inFile = true;
+            this.fileStartedNanos = startedNanos;
+            this.fileBytes = 0L;
+        }
+        return hasNext;
+    }
+
+    @Override
+    public Buffer poll() {
+        final long startedNanos = System.nanoTime();
+        final Buffer buffer = this.delegate.poll();
+        final long endedNanos = System.nanoTime();
+        if (buffer == null) {
+            if (this.inFile) {
+                this.inFile = false;
+                this.metrics.fileCompleted(this.fileBytes, endedNanos - this.fileStartedNanos);
+            }
+            return null;
+        }
+        this.fileBytes += buffer.limit();
+        this.metrics.bufferTransferred(buffer.limit(), buffer.capacity(), endedNanos - startedNanos);
+        return buffer;
+    }
+
+    @Override
+    public void close() {
+        this.delegate.close();
+    }
+
+    @Override
+    public Optional<String> hintOfCurrentInputFileNameForLogging() {
+        return this.delegate.hintOfCurrentInputFileNameForLogging();
+    }
+
+    private boolean inFile;
+    private long fileStartedNanos;
+    private long fileBytes;
+
+    private final FileInput delegate;
+    private final FileIoMetrics metrics;
+}
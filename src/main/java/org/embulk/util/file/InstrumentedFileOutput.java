@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+
+// InstrumentedFileOutput measures nextFile() as opening a file, and add() as transferring a Buffer, into FileIoMetrics.
+//
+// A file is completed at the next nextFile() or finish().
+public class InstrumentedFileOutput implements FileOutput {
+    public InstrumentedFileOutput(final FileOutput delegate, final FileIoMetrics metrics) {
+        this.inFile = false;
+        this.fileStartedNanos = 0L;
+        this.fileBytes = 0L;
+
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    // Returns the FileOutput as-is without measuring when the metrics are FileIoMetrics.NOOP.
+    public static FileOutput wrap(final FileOutput delegate, final FileIoMetrics metrics) {
+        if (metrics == FileIoMetrics.NOOP) {
+            return delegate;
+        }
+        return new InstrumentedFileOutput(delegate, metrics);
+    }
+
+    @Override
+    public void nextFile() {
+        this.completeFile();
+        final long startedNanos = System.nanoTime();
+        this.delegate.nextFile();
+        this.metrics.fileOpened(System.nanoTime() - startedNanos);
+        this.inFile = true;
+        this.fileStartedNanos = startedNanos;
+        this.fileBytes = 0L;
+    }
+
+    @Override
+    public void add(final Buffer buffer) {
+        // The Buffer is measured before add() as it may be released in add().
+        final int bytes = buffer.limit();
+        final int capacity = buffer.capacity();
+        final long startedNanos = System.nanoTime();
+        this.delegate.add(buffer);
+        this.metrics.bufferTransferred(bytes, capacity, System.nanoTime() - startedNanos);
+        this.fileBytes += bytes;
+    }
+
+    @Override
+    public void finish() {
+        this.delegate.finish();
+        this.completeFile();
+    }
+
+    @Override
+    public void close() {
+        this.delegate.close();
+    }
+
+    private void completeFile() {
+        if (this.inFile) {
+            this.inFile = false;
+            this.metrics.fileCompleted(this.fileBytes, System.nanoTime() - this.fileStartedNanos);
+        }
+    }
+
+    private boolean inFile;
+    private long fileStartedNanos;
+    private long fileBytes;
+
+    private final FileOutput delegate;
+    private final FileIoMetrics metrics;
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// InstrumentedInputStreamProvider measures opening each InputStream, and each read from it, into FileIoMetrics.
+//
+// A file is completed when its InputStream reaches the end, or is closed.
+public class InstrumentedInputStreamProvider implements InputStreamFileInput.Provider {
+    public InstrumentedInputStreamProvider(final InputStreamFileInput.Provider delegate, final FileIoMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    // Returns the Provider as-is without measuring when the metrics are FileIoMetrics.NOOP.
+    public static InputStreamFileInput.Provider wrap(final InputStreamFileInput.Provider delegate, final FileIoMetrics metrics) {
+        if (metrics == FileIoMetrics.NOOP) {
+            return delegate;
+        }
+        return new InstrumentedInputStreamProvider(delegate, metrics);
+    }
+
+    @Override
+    public InputStreamFileInput.InputStreamWithHints openNextWithHints() throws IOException {
+        final long startedNanos = System.nanoTime();
+        final InputStreamFileInput.InputStreamWithHints opened = this.delegate.openNextWithHints();
+        if (opened == null || opened.getInputStream() == null) {
+            return opened;
+        }
+        this.metrics.fileOpened(System.nanoTime() - startedNanos);
+        return new InputStreamFileInput.InputStreamWithHints(
+                new InstrumentedInputStream(opened.getInputStream(), this.metrics, startedNanos),
+                opened.getHintOfCurrentInputFileNameForLogging().orElse(null));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.delegate.close();
+    }
+
+    private static final class InstrumentedInputStream extends FilterInputStream {
+        InstrumentedInputStream(final InputStream in, final FileIoMetrics metrics, final long fileStartedNanos) {
+            super(in);
+            this.fileBytes = 0L;
+            this.completed = false;
+
+            this.metrics = metrics;
+            this.fileStartedNanos = fileStartedNanos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final long startedNanos = System.nanoTime();
+            final int b = this.in.read();
+            if (b < 0) {
+                this.complete();
+                return b;
+            }
+            this.fileBytes++;
+            this.metrics.bufferTransferred(1, 1, System.nanoTime() - startedNanos);
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final long startedNanos = System.nanoTime();
+            final int n = this.in.read(b, off, len);
+            if (n < 0) {
+                this.complete();
+                return n;
+            }
+            this.fileBytes += n;
+            this.metrics.bufferTransferred(n, len, System.nanoTime() - startedNanos);
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.complete();
+            } finally {
+                this.in.close();
+            }
+        }
+
+        private void complete() {
+            if (!this.completed) {
+                this.completed = true;
+                this.metrics.fileCompleted(this.fileBytes, System.nanoTime() - this.fileStartedNanos);
+            }
+        }
+
+        private long fileBytes;
+        private boolean completed;
+
+        private final FileIoMetrics metrics;
+        private final long fileStartedNanos;
+    }
+
+    private final InputStreamFileInput.Provider delegate;
+    private final FileIoMetrics metrics;
+}
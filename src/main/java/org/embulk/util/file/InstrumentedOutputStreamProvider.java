@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// InstrumentedOutputStreamProvider measures opening each OutputStream, and each write into it, into FileIoMetrics.
+//
+// A file is completed when its OutputStream is closed.
+public class InstrumentedOutputStreamProvider implements OutputStreamFileOutput.Provider {
+    public InstrumentedOutputStreamProvider(final OutputStreamFileOutput.Provider delegate, final FileIoMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    // Returns the Provider as-is without measuring when the metrics are FileIoMetrics.NOOP.
+    public static OutputStreamFileOutput.Provider wrap(final OutputStreamFileOutput.Provider delegate, final FileIoMetrics metrics) {
+        if (metrics == FileIoMetrics.NOOP) {
+            return delegate;
+        }
+        return new InstrumentedOutputStreamProvider(delegate, metrics);
+    }
+
+    @Override
+    public OutputStream openNext() throws IOException {
+        final long startedNanos = System.nanoTime();
+        final OutputStream opened = this.delegate.openNext();
+        this.metrics.fileOpened(System.nanoTime() - startedNanos);
+        return new InstrumentedOutputStream(opened, this.metrics, startedNanos);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        this.delegate.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.delegate.close();
+    }
+
+    private static final class InstrumentedOutputStream extends FilterOutputStream {
+        InstrumentedOutputStream(final OutputStream out, final FileIoMetrics metrics, final long fileStartedNanos) {
+            super(out);
+            this.fileBytes = 0L;
+            this.completed = false;
+
+            this.metrics = metrics;
+            this.fileStartedNanos = fileStartedNanos;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            final long startedNanos = System.nanoTime();
+            this.out.write(b);
+            this.fileBytes++;
+            this.metrics.bufferTransferred(1, 1, System.nanoTime() - startedNanos);
+        }
+
+        // FilterOutputStream#write(byte[], int, int) writes byte by byte. It is overridden to write in bulk.
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final long startedNanos = System.nanoTime();
+            this.out.write(b, off, len);
+            this.fileBytes += len;
+            this.metrics.bufferTransferred(len, len, System.nanoTime() - startedNanos);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.out.close();
+            } finally {
+                if (!this.completed) {
+                    this.completed = true;
+                    this.metrics.fileCompleted(this.fileBytes, System.nanoTime() - this.fileStartedNanos);
+                }
+            }
+        }
+
+        private long fileBytes;
+        private boolean completed;
+
+        private final FileIoMetrics metrics;
+        private final long fileStartedNanos;
+    }
+
+    private final OutputStreamFileOutput.Provider delegate;
+    private final FileIoMetrics metrics;
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+
+// MultipartUploadFileOutput cuts each file into parts of "partSize" bytes, and uploads the parts concurrently through
+// a PartUploader while the following parts are still being added.
+//
+// Each file gets its PartUploader from the Provider at nextFile(). Parts are numbered from 1. The last part may be
+// shorter, and a file with no bytes has no part. When all the parts of a file are uploaded, PartUploader#complete() is
+// called at nextFile() or finish(). A file not completed is aborted by PartUploader#abort() at close().
+//
+// At most "maxInFlightParts" parts are being uploaded or waiting, in addition to the part being filled, which bounds
+// the memory in use to about ("maxInFlightParts" + 1) * "partSize" bytes.
+//
+// A failure in uploading a part is thrown from every following nextFile(), add() and finish() until close(), so that
+// the upload is never completed with a part missing.
+public class MultipartUploadFileOutput implements FileOutput {
+    public MultipartUploadFileOutput(
+            final Provider provider,
+            final int partSize,
+            final int threads,
+            final int maxInFlightParts) {
+        this(provider, null, threads, partSize, maxInFlightParts);
+    }
+
+    // The ExecutorService given is not shut down by MultipartUploadFileOutput so that it can be shared.
+    public MultipartUploadFileOutput(
+            final Provider provider,
+            final ExecutorService executor,
+            final int partSize,
+            final int maxInFlightParts) {
+        this(provider, executor, 0, partSize, maxInFlightParts);
+    }
+
+    public MultipartUploadFileOutput(final Provider provider, final int partSize) {
+        this(provider, partSize, DEFAULT_THREADS, DEFAULT_THREADS * 2);
+    }
+
+    private MultipartUploadFileOutput(
+            final Provider provider,
+            final ExecutorService executor,
+            final int threads,
+            final int partSize,
+            final int maxInFlightParts) {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("partSize must be positive.");
+        }
+        if (executor == null && threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+        if (maxInFlightParts <= 0) {
+            throw new IllegalArgumentException("maxInFlightParts must be positive.");
+        }
+        this.current = null;
+        this.part = null;
+        this.partLength = 0;
+        this.partCount = 0;
+        this.uploadedBytes = 0L;
+        this.failure = null;
+        this.closed = false;
+
+        this.provider = provider;
+        if (executor != null) {
+            this.executor = executor;
+            this.ownsExecutor = false;
+        } else {
+            this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("embulk-util-file-multipart"));
+            this.ownsExecutor = true;
+        }
+        this.partSize = partSize;
+        this.maxInFlightParts = maxInFlightParts;
+        this.inFlight = new ArrayDeque<>();
+    }
+
+    public interface Provider extends Closeable {
+        PartUploader openNext() throws IOException;
+
+        void finish() throws IOException;
+
+        void close() throws IOException;
+    }
+
+    // uploadPart() may be called concurrently from multiple threads, and in any order of parts.
+    public interface PartUploader {
+        // "data" is read-only, and valid only until uploadPart() returns. "offset" is the position of the part in the file.
+        void uploadPart(int partNumber, long offset, ByteBuffer data) throws IOException;
+
+        // Called after all the "partCount" parts of "totalBytes" bytes in total are uploaded successfully.
+        void complete(int partCount, long totalBytes) throws IOException;
+
+        // Called after all the parts being uploaded are ended, to discard the parts uploaded.
+        void abort() throws IOException;
+    }
+
+    @Override
+    public void nextFile() {
+        this.throwIfFailed();
+        try {
+            this.completeCurrent();
+            this.current = this.provider.openNext();
+        } catch (final IOException ex) {
+            this.failure = new UncheckedIOException(ex);
+            throw this.failure;
+        } catch (final RuntimeException ex) {
+            this.failure = ex;
+            throw ex;
+        }
+        this.partCount = 0;
+        this.uploadedBytes = 0L;
+    }
+
+    @Override
+    public void add(final Buffer buffer) {
+        try {
+            this.throwIfFailed();
+            if (this.current == null) {
+                throw new IllegalStateException("MultipartUploadFileOutput#nextFile() must be called before add().");
+            }
+            this.addParts(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public void finish() {
+        this.throwIfFailed();
+        try {
+            this.completeCurrent();
+            this.provider.finish();
+        } catch (final IOException ex) {
+            this.failure = new UncheckedIOException(ex);
+            throw this.failure;
+        } catch (final RuntimeException ex) {
+            this.failure = ex;
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.abortCurrent();
+        } finally {
+            try {
+                if (this.ownsExecutor) {
+                    this.executor.shutdownNow();
+                }
+            } finally {
+                try {
+                    this.provider.close();
+                } catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private void addParts(final Buffer buffer) {
+        try {
+            final byte[] array = buffer.array();
+            int cursor = buffer.offset();
+            int remaining = buffer.limit();
+            while (remaining > 0) {
+                if (this.part == null) {
+                    this.part = new byte[this.partSize];
+                    this.partLength = 0;
+                }
+                final int n = Math.min(remaining, this.partSize - this.partLength);
+                System.arraycopy(array, cursor, this.part, this.partLength, n);
+                this.partLength += n;
+                cursor += n;
+                remaining -= n;
+                if (this.partLength >= this.partSize) {
+                    this.submitPart();
+                }
+            }
+        } catch (final RuntimeException ex) {
+            this.failure = ex;
+            throw ex;
+        }
+    }
+
+    // Uploads the last part, waits for all the parts, and completes the upload. The file is left to be aborted on failure.
+    private void completeCurrent() {
+        if (this.current == null) {
+            return;
+        }
+        if (this.partLength > 0) {
+            this.submitPart();
+        }
+        this.part = null;
+        while (!this.inFlight.isEmpty()) {
+            this.awaitFirstPart();
+        }
+        try {
+            this.current.complete(this.partCount, this.uploadedBytes);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.current = null;
+    }
+
+    // Parts not started yet are cancelled, and parts being uploaded are waited for, before aborting the upload.
+    private void abortCurrent() {
+        this.part = null;
+        this.partLength = 0;
+        while (!this.inFlight.isEmpty()) {
+            final Future<?> future = this.inFlight.pollFirst();
+            if (!future.cancel(false)) {
+                Futures.awaitUninterruptibly(future);
+            }
+        }
+        if (this.current == null) {
+            return;
+        }
+        final PartUploader uploader = this.current;
+        this.current = null;
+        try {
+            uploader.abort();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void submitPart() {
+        final PartUploader uploader = this.current;
+        final int partNumber = this.partCount + 1;
+        final long offset = this.uploadedBytes;
+        final ByteBuffer data = ByteBuffer.wrap(this.part, 0, this.partLength).asReadOnlyBuffer();
+
+        while (this.inFlight.size() >= this.maxInFlightParts) {
+            this.awaitFirstPart();
+        }
+        this.inFlight.addLast(this.executor.submit(() -> {
+            uploader.uploadPart(partNumber, offset, data);
+            return null;
+        }));
+
+        // The part is never modified after it is submitted as a new array is allocated for the next part.
+        this.partCount = partNumber;
+        this.uploadedBytes = offset + this.partLength;
+        this.part = null;
+        this.partLength = 0;
+
+        // Parts already uploaded are dropped early to surface a failure soon.
+        while (!this.inFlight.isEmpty() && this.inFlight.peekFirst().isDone()) {
+            this.awaitFirstPart();
+        }
+    }
+
+    // The first part is removed only after it is uploaded successfully, not to lose a failed part from the queue.
+    private void awaitFirstPart() {
+        try {
+            Futures.getAsIfDirect(this.inFlight.peekFirst(), "a part to be uploaded");
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.inFlight.pollFirst();
+    }
+
+    private void throwIfFailed() {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    private static final int DEFAULT_THREADS = 4;
+
+    private PartUploader current;
+    private byte[] part;
+    private int partLength;
+    private int partCount;
+    private long uploadedBytes;
+    private RuntimeException failure;
+    private boolean closed;
+
+    private final Provider provider;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int partSize;
+    private final int maxInFlightParts;
+    private final ArrayDeque<Future<?>> inFlight;
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+import org.embulk.spi.FileInput;
+
+// ParallelGzipFileInput decompresses gzip files from another FileInput on background threads, and returns decompressed
+// Buffers in order. It is placed between a FileInput of compressed files, such as InputStreamFileInput, and the parser.
+//
+// BGZF blocks, which are gzip members with the "BC" extra subfield telling the size of the member, are found one by one
+// on the calling thread, and inflated concurrently on "threads" worker threads into a Buffer of the uncompressed size.
+//
+// Other gzip members do not tell where they end until they are inflated. Once such a member is found, the rest of the file
+// is inflated serially, but still on a background thread ahead of the caller, as java.util.zip.GZIPInputStream does.
+//
+// At most "maxInFlightBlocks" Buffers are being inflated or waiting to be returned, which bounds the memory in use.
+//
+// A failure in decompression is thrown from poll() and then from every following poll() and nextFile() until close().
+public class ParallelGzipFileInput implements FileInput {
+    public ParallelGzipFileInput(
+            final FileInput delegate,
+            final BufferAllocator allocator,
+            final int threads,
+            final int maxInFlightBlocks) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+        if (maxInFlightBlocks <= 0) {
+            throw new IllegalArgumentException("maxInFlightBlocks must be positive.");
+        }
+        this.serial = null;
+        this.failure = null;
+        this.endOfFile = true;
+        this.inFile = false;
+        this.closed = false;
+
+        this.delegate = delegate;
+        this.compressed = new FileInputInputStream(delegate);
+        this.allocator = allocator;
+        this.maxInFlightBlocks = maxInFlightBlocks;
+        this.pending = new ArrayDeque<>();
+        this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("embulk-util-file-gunzip"));
+        this.serialExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("embulk-util-file-gunzip-serial"));
+        this.inflaters = new ZipCoderPool<>(() -> new Inflater(true), Inflater::end);
+    }
+
+    public ParallelGzipFileInput(final FileInput delegate, final BufferAllocator allocator) {
+        this(delegate, allocator, Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    @Override
+    public boolean nextFile() {
+        this.throwIfFailed();
+        this.endCurrent();
+        if (!this.compressed.nextFile()) {
+            return false;
+        }
+        this.inFile = true;
+        this.endOfFile = false;
+        return true;
+    }
+
+    @Override
+    public Buffer poll() {
+        if (!this.inFile) {
+            throw new IllegalStateException("ParallelGzipFileInput#nextFile() must be called before poll().");
+        }
+        this.throwIfFailed();
+        try {
+            while (true) {
+                this.fill();
+                final Block head = this.pending.pollFirst();
+                if (head == null) {
+                    return null;
+                }
+                final Buffer buffer = Futures.getAsIfDirect(head.future, "a gzip block to be inflated");
+                if (buffer == null) {
+                    // The serial inflation reached the end. Blocks submitted after it are all empty.
+                    this.endOfFile = true;
+                    this.discardPending();
+                    return null;
+                }
+                if (buffer.limit() <= 0) {
+                    buffer.release();
+                    continue;
+                }
+                try {
+                    this.fill();
+                } catch (final IOException | RuntimeException ex) {
+                    buffer.release();  // The failure in reading ahead is thrown instead of the Buffer.
+                    throw ex;
+                }
+                return buffer;
+            }
+        } catch (final IOException ex) {
+            this.failure = new UncheckedIOException(ex);
+            throw this.failure;
+        } catch (final RuntimeException ex) {
+            this.failure = ex;
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.endCurrent();
+        } finally {
+            this.executor.shutdownNow();
+            this.serialExecutor.shutdownNow();
+            this.inflaters.close();  // Inflaters still used by running blocks are ended when they are given back.
+            this.compressed.close();
+        }
+    }
+
+    // The number of Inflaters kept for reuse, which are all ended at close().
+    int getPooledInflaterCount() {
+        return this.inflaters.getPooledCount();
+    }
+
+    @Override
+    public Optional<String> hintOfCurrentInputFileNameForLogging() {
+        return this.delegate.hintOfCurrentInputFileNameForLogging();
+    }
+
+    private void fill() throws IOException {
+        while (!this.endOfFile && this.pending.size() < this.maxInFlightBlocks) {
+            if (this.serial != null) {
+                // The Buffer is allocated on the calling thread as BufferAllocator is not expected to be called concurrently.
+                final Buffer buffer = this.allocator.allocate();
+                this.pending.addLast(new Block(this.serialExecutor.submit(() -> this.inflateSerially(buffer)), buffer));
+            } else {
+                this.readMember();
+            }
+        }
+    }
+
+    // Reads a gzip member header on the calling thread, and submits the member if it is a BGZF block.
+    private void readMember() throws IOException {
+        final byte[] header = new byte[BGZF_FIXED_HEADER_LENGTH];
+        final int headerLength = readFully(this.compressed, header, 0, header.length);
+        if (headerLength == 0) {
+            this.endOfFile = true;
+            return;
+        }
+        // Members other than BGZF blocks, and input not in gzip, are left to GZIPInputStream, which validates them.
+        if (headerLength < header.length
+                || (header[0] & 0xff) != GZIP_ID1
+                || (header[1] & 0xff) != GZIP_ID2
+                || (header[2] & 0xff) != GZIP_CM_DEFLATE
+                || (header[3] & 0xff) != FLAG_EXTRA_ONLY) {
+            this.switchToSerial(header, headerLength);
+            return;
+        }
+        final int extraLength = (header[10] & 0xff) | ((header[11] & 0xff) << 8);
+        final byte[] headerWithExtra = new byte[header.length + extraLength];
+        System.arraycopy(header, 0, headerWithExtra, 0, header.length);
+        final int extraRead = readFully(this.compressed, headerWithExtra, header.length, extraLength);
+        final int blockSize = findBgzfBlockSize(headerWithExtra, header.length, extraRead);
+        if (extraRead < extraLength || blockSize < 0) {
+            this.switchToSerial(headerWithExtra, header.length + extraRead);
+            return;
+        }
+
+        final int dataLength = blockSize - headerWithExtra.length - GZIP_TRAILER_LENGTH;
+        if (dataLength < 0) {
+            throw new ZipException("Invalid BGZF block size: " + blockSize);
+        }
+        final byte[] data = new byte[dataLength + GZIP_TRAILER_LENGTH];
+        if (readFully(this.compressed, data, 0, data.length) < data.length) {
+            throw new EOFException("Unexpected end of a BGZF block.");
+        }
+        final long expectedCrc = readIntLittleEndian(data, dataLength);
+        final int uncompressedSize = (int) readIntLittleEndian(data, dataLength + 4);
+        if (uncompressedSize < 0 || uncompressedSize > BGZF_MAX_UNCOMPRESSED_SIZE) {
+            throw new ZipException("Invalid BGZF uncompressed size: " + uncompressedSize);
+        }
+        if (uncompressedSize == 0) {
+            return;  // The empty block, such as the BGZF end-of-file marker.
+        }
+        // The Buffer is allocated on the calling thread as BufferAllocator is not expected to be called concurrently.
+        final Buffer buffer = this.allocator.allocate(uncompressedSize);
+        this.pending.addLast(new Block(
+                this.executor.submit(() -> this.inflateBlock(data, dataLength, expectedCrc, uncompressedSize, buffer)), buffer));
+    }
+
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private Buffer inflateBlock(
+            final byte[] data,
+            final int dataLength,
+            final long expectedCrc,
+            final int uncompressedSize,
+            final Buffer buffer) throws IOException {
+        boolean succeeded = false;
+        try {
+            final Inflater inflater = this.inflaters.take();
+            final int n;
+            final boolean finished;
+            try {
+                inflater.reset();
+                inflater.setInput(data, 0, dataLength);
+                n = inflater.inflate(buffer.array(), buffer.offset(), uncompressedSize);
+                finished = inflater.finished();
+            } catch (final DataFormatException ex) {
+                throw new ZipException("Invalid BGZF block: " + ex.getMessage());
+            } finally {
+                this.inflaters.giveBack(inflater);
+            }
+            if (n != uncompressedSize || !finished) {
+                throw new ZipException("BGZF block size mismatch: expected " + uncompressedSize + " bytes, but " + n + " bytes.");
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(buffer.array(), buffer.offset(), n);
+            if (crc.getValue() != expectedCrc) {
+                throw new ZipException("BGZF block CRC-32 mismatch.");
+            }
+            buffer.limit(n);
+            succeeded = true;
+            return buffer;
+        } finally {
+            if (!succeeded) {
+                buffer.release();
+            }
+        }
+    }
+
+    // The bytes already read to find a BGZF header are prepended back for GZIPInputStream.
+    //
+    // SequenceInputStream closes each stream at its end. The compressed FileInput is wrapped not to be closed there, as
+    // closing it would drain the following files.
+    private void switchToSerial(final byte[] consumed, final int consumedLength) throws IOException {
+        this.serial = new GZIPInputStream(new MembersInputStream(new SequenceInputStream(
+                new ByteArrayInputStream(consumed, 0, consumedLength), new MembersInputStream(this.compressed))));
+    }
+
+    private Buffer inflateSerially(final Buffer allocated) throws IOException {
+        Buffer buffer = allocated;
+        try {
+            final int n = InputStreamFileInput.FillPolicy.toCapacity().fill(this.serial, buffer);
+            if (n < 0) {
+                return null;
+            }
+            buffer.limit(n);
+            final Buffer b = buffer;
+            buffer = null;
+            return b;
+        } finally {
+            if (buffer != null) {
+                buffer.release();
+            }
+        }
+    }
+
+    private void endCurrent() {
+        this.discardPending();
+        if (this.serial != null) {
+            final InputStream serial = this.serial;
+            this.serial = null;
+            try {
+                serial.close();  // Only to end its Inflater. The compressed FileInput is not closed by MembersInputStream.
+            } catch (final IOException ex) {
+                // Passing through intentionally as the rest of the file is discarded anyway.
+            }
+        }
+        this.endOfFile = true;
+        this.inFile = false;
+    }
+
+    // Blocks in progress are waited for as they may be reading the compressed FileInput, and their Buffers are released.
+    private void discardPending() {
+        while (!this.pending.isEmpty()) {
+            final Block block = this.pending.pollFirst();
+            if (block.future.cancel(false)) {
+                if (block.reserved != null) {
+                    block.reserved.release();
+                }
+                continue;
+            }
+            Futures.awaitUninterruptibly(block.future);
+            try {
+                final Buffer buffer = Futures.getAsIfDirect(block.future, "a gzip block to be inflated");
+                if (buffer != null) {
+                    buffer.release();
+                }
+            } catch (final IOException | RuntimeException ex) {
+                // Passing through intentionally as the block is discarded anyway.
+            }
+        }
+    }
+
+    private void throwIfFailed() {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    private static int findBgzfBlockSize(final byte[] header, final int extraStart, final int extraLength) {
+        int i = extraStart;
+        while (i + 4 <= extraStart + extraLength) {
+            final int subfieldLength = (header[i + 2] & 0xff) | ((header[i + 3] & 0xff) << 8);
+            if (header[i] == 'B' && header[i + 1] == 'C' && subfieldLength == 2 && i + 6 <= extraStart + extraLength) {
+                return ((header[i + 4] & 0xff) | ((header[i + 5] & 0xff) << 8)) + 1;
+            }
+            i += 4 + subfieldLength;
+        }
+        return -1;
+    }
+
+    private static int readFully(final InputStream in, final byte[] bytes, final int offset, final int length) throws IOException {
+        int filled = 0;
+        while (filled < length) {
+            final int n = in.read(bytes, offset + filled, length - filled);
+            if (n < 0) {
+                break;
+            }
+            filled += n;
+        }
+        return filled;
+    }
+
+    private static long readIntLittleEndian(final byte[] bytes, final int index) {
+        return ((bytes[index] & 0xffL)
+                | ((bytes[index + 1] & 0xffL) << 8)
+                | ((bytes[index + 2] & 0xffL) << 16)
+                | ((bytes[index + 3] & 0xffL) << 24));
+    }
+
+    private static final class Block {
+        Block(final Future<Buffer> future, final Buffer reserved) {
+            this.future = future;
+            this.reserved = reserved;
+        }
+
+        private final Future<Buffer> future;
+        private final Buffer reserved;  // Released here if the Future is cancelled before it runs.
+    }
+
+    // MembersInputStream lets GZIPInputStream go on to the next member even when a member ends at the end of a Buffer.
+    //
+    // GZIPInputStream of Java 8 looks for the next member only if available() is positive. It reads the next header
+    // anyway, and ends normally when there is no header. close() does not close the compressed FileInput.
+    private static final class MembersInputStream extends FilterInputStream {
+        MembersInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int available() {
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final int BGZF_FIXED_HEADER_LENGTH = 12;
+    private static final int BGZF_MAX_UNCOMPRESSED_SIZE = 65536;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int GZIP_ID1 = 0x1f;
+    private static final int GZIP_ID2 = 0x8b;
+    private static final int GZIP_CM_DEFLATE = 8;
+    private static final int FLAG_EXTRA_ONLY = 0x04;
+
+    private InputStream serial;
+    private RuntimeException failure;
+    private boolean endOfFile;
+    private boolean inFile;
+    private boolean closed;
+
+    private final FileInput delegate;
+    private final FileInputInputStream compressed;
+    private final BufferAllocator allocator;
+    private final int maxInFlightBlocks;
+    private final ArrayDeque<Block> pending;
+    private final ExecutorService executor;
+    private final ExecutorService serialExecutor;
+    private final ZipCoderPool<Inflater> inflaters;
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+
+// ParallelGzipFileOutput compresses bytes added into gzip on multiple threads, and adds the compressed bytes to another
+// FileOutput, one gzip file for each file from nextFile() to the next nextFile() or finish().
+//
+// Bytes are split into blocks of "blockSize" bytes, and the blocks are deflated concurrently into raw deflate data ending
+// at a byte boundary, as pigz does. Each block is primed with the last 32 KiB of its preceding block as the dictionary so
+// that the compression ratio is almost the same as single-threaded gzip. The compressed blocks are concatenated in order
+// into one standard gzip member. The CRC-32 is calculated on the calling thread.
+//
+// At most "maxInFlightBlocks" blocks are being compressed or waiting to be added, which bounds the memory in use.
+//
+// A failure in compressing or adding a block is thrown from every following nextFile(), add() and finish() until close(),
+// so that a gzip member missing a block is never finished with the trailer over all the bytes.
+public class ParallelGzipFileOutput implements FileOutput {
+    public ParallelGzipFileOutput(
+            final FileOutput delegate,
+            final int blockSize,
+            final int threads,
+            final int maxInFlightBlocks,
+            final int compressionLevel) {
+        this(delegate, null, threads, blockSize, maxInFlightBlocks, compressionLevel);
+    }
+
+    // The ExecutorService given is not shut down by ParallelGzipFileOutput so that it can be shared.
+    public ParallelGzipFileOutput(
+            final FileOutput delegate,
+            final ExecutorService executor,
+            final int blockSize,
+            final int maxInFlightBlocks,
+            final int compressionLevel) {
+        this(delegate, executor, 0, blockSize, maxInFlightBlocks, compressionLevel);
+    }
+
+    public ParallelGzipFileOutput(final FileOutput delegate) {
+        this(delegate,
+                DEFAULT_BLOCK_SIZE,
+                Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().availableProcessors() * 2,
+                Deflater.DEFAULT_COMPRESSION);
+    }
+
+    private ParallelGzipFileOutput(
+            final FileOutput delegate,
+            final ExecutorService executor,
+            final int threads,
+            final int blockSize,
+            final int maxInFlightBlocks,
+            final int compressionLevel) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive.");
+        }
+        if (executor == null && threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+        if (maxInFlightBlocks <= 0) {
+            throw new IllegalArgumentException("maxInFlightBlocks must be positive.");
+        }
+        if ((compressionLevel < 0 || compressionLevel > 9) && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("compressionLevel must be in [0, 9], or -1 for the default.");
+        }
+        this.block = null;
+        this.blockLength = 0;
+        this.previousBlock = null;
+        this.previousBlockLength = 0;
+        this.uncompressedSize = 0L;
+        this.inFile = false;
+        this.failure = null;
+        this.closed = false;
+
+        this.delegate = delegate;
+        if (executor != null) {
+            this.executor = executor;
+            this.ownsExecutor = false;
+        } else {
+            this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("embulk-util-file-gzip"));
+            this.ownsExecutor = true;
+        }
+        this.blockSize = blockSize;
+        this.maxInFlightBlocks = maxInFlightBlocks;
+        this.compressionLevel = compressionLevel;
+        this.crc = new CRC32();
+        this.inFlight = new ArrayDeque<>();
+        this.deflaters = new ZipCoderPool<>(() -> new Deflater(this.compressionLevel, true), Deflater::end);
+    }
+
+    @Override
+    public void nextFile() {
+        this.throwIfFailed();
+        try {
+            this.endFile();
+            this.delegate.nextFile();
+            this.inFile = true;
+            this.crc.reset();
+            this.uncompressedSize = 0L;
+            this.previousBlock = null;
+            this.previousBlockLength = 0;
+            this.addBytes(GZIP_HEADER.clone(), GZIP_HEADER.length);
+        } catch (final RuntimeException ex) {
+            this.failure = ex;
+            throw ex;
+        }
+    }
+
+    @Override
+    public void add(final Buffer buffer) {
+        try {
+            this.throwIfFailed();
+            if (!this.inFile) {
+                throw new IllegalStateException("ParallelGzipFileOutput#nextFile() must be called before add().");
+            }
+            this.addBlocks(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public void finish() {
+        this.throwIfFailed();
+        try {
+            this.endFile();
+            this.delegate.finish();
+        } catch (final RuntimeException ex) {
+            this.failure = ex;
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            while (!this.inFlight.isEmpty()) {
+                this.inFlight.pollFirst().cancel(true);
+            }
+            this.block = null;
+            this.previousBlock = null;
+            this.inFile = false;
+        } finally {
+            if (this.ownsExecutor) {
+                this.executor.shutdownNow();
+            }
+            // Deflaters still used by running blocks are ended when they are given back.
+            this.deflaters.close();
+            this.delegate.close();
+        }
+    }
+
+    // The number of Deflaters kept for reuse, which are all ended at close().
+    int getPooledDeflaterCount() {
+        return this.deflaters.getPooledCount();
+    }
+
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private void addBlocks(final Buffer buffer) {
+        try {
+            final byte[] array = buffer.array();
+            int cursor = buffer.offset();
+            int remaining = buffer.limit();
+            while (remaining > 0) {
+                if (this.block == null) {
+                    this.block = new byte[this.blockSize];
+                    this.blockLength = 0;
+                }
+                final int n = Math.min(remaining, this.blockSize - this.blockLength);
+                System.arraycopy(array, cursor, this.block, this.blockLength, n);
+                this.blockLength += n;
+                cursor += n;
+                remaining -= n;
+                if (this.blockLength >= this.blockSize) {
+                    this.submitBlock(false);
+                }
+            }
+        } catch (final RuntimeException ex) {
+            this.failure = ex;
+            throw ex;
+        }
+    }
+
+    // Compresses the last block with FINISH, and adds all the compressed blocks and the gzip trailer in order.
+    private void endFile() {
+        if (!this.inFile) {
+            return;
+        }
+        this.submitBlock(true);
+        while (!this.inFlight.isEmpty()) {
+            this.addFirstCompressed();
+        }
+        final byte[] trailer = new byte[8];
+        writeIntLittleEndian(trailer, 0, this.crc.getValue());
+        writeIntLittleEndian(trailer, 4, this.uncompressedSize);  // ISIZE is the size modulo 2^32.
+        this.addBytes(trailer, trailer.length);
+        this.block = null;
+        this.previousBlock = null;
+        this.inFile = false;
+    }
+
+    private void submitBlock(final boolean last) {
+        final byte[] input = this.block != null ? this.block : EMPTY_BYTES;
+        final int length = this.block != null ? this.blockLength : 0;
+        final byte[] dictionary = this.previousBlock;
+        final int dictionaryLength = this.previousBlockLength;
+        this.crc.update(input, 0, length);
+        this.uncompressedSize += length;
+
+        while (this.inFlight.size() >= this.maxInFlightBlocks) {
+            this.addFirstCompressed();
+        }
+        this.inFlight.addLast(this.executor.submit(() -> this.deflate(input, length, dictionary, dictionaryLength, last)));
+
+        // The block is never modified after it is submitted as a new array is allocated for the next block.
+        this.previousBlock = input;
+        this.previousBlockLength = length;
+        this.block = null;
+        this.blockLength = 0;
+
+        // Compressed blocks already done are added early to release memory.
+        while (!this.inFlight.isEmpty() && this.inFlight.peekFirst().isDone()) {
+            this.addFirstCompressed();
+        }
+    }
+
+    private byte[] deflate(
+            final byte[] input,
+            final int length,
+            final byte[] dictionary,
+            final int dictionaryLength,
+            final boolean last) {
+        final Deflater deflater = this.deflaters.take();
+        try {
+            return deflate(deflater, input, length, dictionary, dictionaryLength, last);
+        } finally {
+            this.deflaters.giveBack(deflater);
+        }
+    }
+
+    private static byte[] deflate(
+            final Deflater deflater,
+            final byte[] input,
+            final int length,
+            final byte[] dictionary,
+            final int dictionaryLength,
+            final boolean last) {
+        deflater.reset();
+        if (dictionary != null && dictionaryLength > 0) {
+            final int n = Math.min(dictionaryLength, DICTIONARY_SIZE);
+            deflater.setDictionary(dictionary, dictionaryLength - n, n);
+        }
+        deflater.setInput(input, 0, length);
+        if (last) {
+            deflater.finish();
+        }
+
+        // Sized as deflateBound() of zlib with some room for the sync flush marker so that one deflate() is enough in most cases.
+        byte[] output = new byte[length + (length >> 12) + (length >> 14) + (length >> 25) + 64];
+        int outputLength = 0;
+        while (true) {
+            if (outputLength >= output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            final int n = deflater.deflate(
+                    output, outputLength, output.length - outputLength, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+            outputLength += n;
+            if (last ? deflater.finished() : outputLength < output.length) {
+                break;
+            }
+        }
+        return outputLength == output.length ? output : Arrays.copyOf(output, outputLength);
+    }
+
+    // The first block is removed only after it is compressed successfully, not to lose a failed block from the queue.
+    private void addFirstCompressed() {
+        final byte[] compressed;
+        try {
+            compressed = Futures.getAsIfDirect(this.inFlight.peekFirst(), "a block to be compressed");
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.inFlight.pollFirst();
+        this.addBytes(compressed, compressed.length);
+    }
+
+    private void throwIfFailed() {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    // The array is handed over to the delegate without copying. It is not reused after that.
+    private void addBytes(final byte[] bytes, final int length) {
+        if (length <= 0) {
+            return;
+        }
+        final Buffer buffer = ByteArrayBuffer.create(bytes, 0, length, null);
+        buffer.limit(length);
+        this.delegate.add(buffer);
+    }
+
+    private static void writeIntLittleEndian(final byte[] bytes, final int index, final long value) {
+        bytes[index] = (byte) value;
+        bytes[index + 1] = (byte) (value >>> 8);
+        bytes[index + 2] = (byte) (value >>> 16);
+        bytes[index + 3] = (byte) (value >>> 24);
+    }
+
+    private static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    // ID1, ID2, CM = deflate, FLG = none, MTIME = 0, XFL = 0, OS = 0 as java.util.zip.GZIPOutputStream writes.
+    private static final byte[] GZIP_HEADER = {
+        (byte) 0x1f, (byte) 0x8b, (byte) 0x08, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private byte[] block;
+    private int blockLength;
+    private byte[] previousBlock;
+    private int previousBlockLength;
+    private long uncompressedSize;
+    private boolean inFile;
+    private RuntimeException failure;
+    private boolean closed;
+
+    private final FileOutput delegate;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int blockSize;
+    private final int maxInFlightBlocks;
+    private final int compressionLevel;
+    private final CRC32 crc;
+    private final ArrayDeque<Future<byte[]>> inFlight;
+    private final ZipCoderPool<Deflater> deflaters;
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// ParallelRangeInputStream reads one source of a known length by fetching byte ranges concurrently, and serves them in order.
+//
+// Each range is fetched through ResumableInputStream over the same ResumableInputStream.Reopener, shifted to the start
+// of the range, so that a failure in opening a range or in the middle of a range is retried as ResumableInputStream does
+// with "retryPolicy".
+// The Reopener and the RetryPolicy may be called concurrently from multiple threads.
+//
+// A range which failed to be fetched is thrown from every read after the bytes before the range, and the bytes after
+// the range are never served.
+//
+// At most "parallelism" ranges of "rangeSize" bytes are fetched or kept ahead in memory, in addition to the current range.
+public class ParallelRangeInputStream extends InputStream {
+    public ParallelRangeInputStream(
+            final ResumableInputStream.Reopener reopener,
+            final ResumableInputStream.RetryPolicy retryPolicy,
+            final long length,
+            final int rangeSize,
+            final int parallelism) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must not be negative.");
+        }
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("rangeSize must be positive.");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive.");
+        }
+        this.current = EMPTY_BYTES;
+        this.pos = 0;
+        this.nextRangeStart = 0L;
+        this.closed = false;
+
+        this.reopener = reopener;
+        this.retryPolicy = retryPolicy;
+        this.length = length;
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+        this.pending = new ArrayDeque<>();
+        this.executor = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("embulk-util-file-range"));
+    }
+
+    // Retries with backoff up to a few times by default, instead of retrying endlessly as ResumableInputStream does.
+    public ParallelRangeInputStream(
+            final ResumableInputStream.Reopener reopener,
+            final long length,
+            final int rangeSize,
+            final int parallelism) {
+        this(reopener, DEFAULT_RETRY_POLICY, length, rangeSize, parallelism);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!this.ensureAvailable()) {
+            return -1;
+        }
+        return this.current[this.pos++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!this.ensureAvailable()) {
+            return -1;
+        }
+        final int n = Math.min(len, this.current.length - this.pos);
+        System.arraycopy(this.current, this.pos, b, off, n);
+        this.pos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        if (n <= 0 || !this.ensureAvailable()) {
+            return 0;
+        }
+        final int skipped = (int) Math.min(n, (long) (this.current.length - this.pos));
+        this.pos += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        this.ensureOpened();
+        return this.current.length - this.pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.current = EMPTY_BYTES;
+        this.pos = 0;
+        while (!this.pending.isEmpty()) {
+            this.pending.pollFirst().cancel(true);
+        }
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        this.ensureOpened();
+        while (this.pos >= this.current.length) {
+            this.fill();
+            final Future<byte[]> head = this.pending.peekFirst();
+            if (head == null) {
+                return false;
+            }
+            // The range is removed only after it is fetched so that a failed range is thrown again at the next read.
+            this.current = Futures.getAsIfDirect(head, "a range to be fetched");
+            this.pending.pollFirst();
+            this.pos = 0;
+            this.fill();
+        }
+        return true;
+    }
+
+    private void fill() {
+        while (this.pending.size() < this.parallelism && this.nextRangeStart < this.length) {
+            final long start = this.nextRangeStart;
+            final int size = (int) Math.min((long) this.rangeSize, this.length - start);
+            this.pending.addLast(this.executor.submit(() -> this.fetch(start, size)));
+            this.nextRangeStart = start + size;
+        }
+    }
+
+    private byte[] fetch(final long start, final int size) throws IOException {
+        final byte[] range = new byte[size];
+        try (final InputStream in = new ResumableInputStream(
+                (offset, cause) -> this.reopener.reopen(start + offset, cause), this.retryPolicy)) {
+            int filled = 0;
+            while (filled < size) {
+                final int n = in.read(range, filled, size - filled);
+                if (n < 0) {
+                    throw new EOFException("Unexpected end of the source at " + (start + filled) + " before " + this.length + " bytes.");
+                }
+                filled += n;
+            }
+        }
+        return range;
+    }
+
+    private void ensureOpened() throws IOException {
+        if (this.closed) {
+            throw new IOException("ParallelRangeInputStream is already closed.");
+        }
+    }
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final ResumableInputStream.RetryPolicy DEFAULT_RETRY_POLICY = new BackoffRetryPolicy(100L, 10000L, 5);
+
+    private byte[] current;
+    private int pos;
+    private long nextRangeStart;
+    private boolean closed;
+
+    private final ResumableInputStream.Reopener reopener;
+    private final ResumableInputStream.RetryPolicy retryPolicy;
+    private final long length;
+    private final int rangeSize;
+    private final int parallelism;
+    private final ArrayDeque<Future<byte[]>> pending;
+    private final ExecutorService executor;
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// PipelinedProvider opens the next files ahead while the current file is being read by InputStreamFileInput.
+//
+// Files are returned in the same order with the same InputStreamWithHints as they are opened. At most "maxOpenAhead"
+// files are opened or being opened ahead, in addition to the current file returned last.
+//
+// With HintedOpeners, up to "maxOpenAhead" files are opened concurrently. With a Provider, the Provider is called ahead
+// one by one on a single background thread because a Provider is not expected to be called concurrently. Once the Provider
+// returns null, it is never called again.
+//
+// With HintedOpeners, an opener returning null is returned as is, and the files after it are still opened ahead. Files
+// opened ahead and not returned are closed at close().
+//
+// A failure in opening a file is thrown from every following openNextWithHints() until close(), so that the file is never
+// skipped by retrying.
+public class PipelinedProvider implements InputStreamFileInput.Provider {
+    public PipelinedProvider(final Iterator<? extends HintedOpener> openers, final int maxOpenAhead) {
+        this(new OpenerTasks(openers), null, maxOpenAhead, maxOpenAhead);
+    }
+
+    public PipelinedProvider(final Iterable<? extends HintedOpener> openers, final int maxOpenAhead) {
+        this(openers.iterator(), maxOpenAhead);
+    }
+
+    public PipelinedProvider(final InputStreamFileInput.Provider provider, final int maxOpenAhead) {
+        this(new ProviderTasks(provider), provider, maxOpenAhead, 1);
+    }
+
+    private PipelinedProvider(
+            final Iterator<Callable<InputStreamFileInput.InputStreamWithHints>> tasks,
+            final InputStreamFileInput.Provider provider,
+            final int maxOpenAhead,
+            final int threads) {
+        if (maxOpenAhead <= 0) {
+            throw new IllegalArgumentException("maxOpenAhead must be positive.");
+        }
+        this.exhausted = false;
+        this.closed = false;
+
+        this.tasks = tasks;
+        this.provider = provider;
+        this.maxOpenAhead = maxOpenAhead;
+        this.pending = new ArrayDeque<>();
+        this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("embulk-util-file-open"));
+    }
+
+    public interface HintedOpener {
+        InputStreamFileInput.InputStreamWithHints open() throws IOException;
+    }
+
+    @Override
+    public InputStreamFileInput.InputStreamWithHints openNextWithHints() throws IOException {
+        if (this.closed) {
+            throw new IOException("PipelinedProvider is already closed.");
+        }
+        this.fill();
+        final Future<InputStreamFileInput.InputStreamWithHints> head = this.pending.peekFirst();
+        if (head == null) {
+            return null;
+        }
+        // The head is kept pending until it is opened successfully. A failed head throws the same failure again at retries.
+        final InputStreamFileInput.InputStreamWithHints opened = Futures.getAsIfDirect(head, "a file to be opened");
+        this.pending.pollFirst();
+        if ((opened == null || opened.getInputStream() == null) && this.provider != null) {
+            this.exhausted = true;  // The tasks pending after the end return null without calling the Provider.
+            this.discardPending();
+            return opened;
+        }
+        this.fill();
+        return opened;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.exhausted = true;
+        try {
+            this.discardPending();
+        } finally {
+            this.executor.shutdownNow();
+            if (this.provider != null) {
+                this.provider.close();
+            }
+        }
+    }
+
+    private void fill() {
+        while (!this.exhausted && this.pending.size() < this.maxOpenAhead) {
+            if (!this.tasks.hasNext()) {
+                this.exhausted = true;
+                return;
+            }
+            this.pending.addLast(this.executor.submit(this.tasks.next()));
+        }
+    }
+
+    // Streams opened ahead are closed as they are never returned. Opens in progress are waited for to close their streams.
+    private void discardPending() {
+        while (!this.pending.isEmpty()) {
+            final Future<InputStreamFileInput.InputStreamWithHints> future = this.pending.pollFirst();
+            if (future.cancel(false)) {
+                continue;
+            }
+            try {
+                final InputStreamFileInput.InputStreamWithHints opened = Futures.getAsIfDirect(future, "a file to be opened");
+                if (opened != null && opened.getInputStream() != null) {
+                    opened.getInputStream().close();
+                }
+            } catch (final IOException | RuntimeException ex) {
+                // Passing through intentionally as the stream is discarded anyway.
+            }
+        }
+    }
+
+    private static class OpenerTasks implements Iterator<Callable<InputStreamFileInput.InputStreamWithHints>> {
+        OpenerTasks(final Iterator<? extends HintedOpener> openers) {
+            this.openers = openers;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.openers.hasNext();
+        }
+
+        @Override
+        public Callable<InputStreamFileInput.InputStreamWithHints> next() {
+            final HintedOpener opener = this.openers.next();
+            return opener::open;
+        }
+
+        private final Iterator<? extends HintedOpener> openers;
+    }
+
+    // The tasks are executed in order on a single thread. A task after the Provider returns null returns null by itself.
+    private static class ProviderTasks implements Iterator<Callable<InputStreamFileInput.InputStreamWithHints>> {
+        ProviderTasks(final InputStreamFileInput.Provider provider) {
+            this.ended = false;
+
+            this.provider = provider;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.ended;  // The end is known only when the Provider returns null.
+        }
+
+        @Override
+        public Callable<InputStreamFileInput.InputStreamWithHints> next() {
+            return this::openNext;
+        }
+
+        private InputStreamFileInput.InputStreamWithHints openNext() throws IOException {
+            if (this.ended) {
+                return null;
+            }
+            final InputStreamFileInput.InputStreamWithHints opened = this.provider.openNextWithHints();
+            if (opened == null || opened.getInputStream() == null) {
+                this.ended = true;
+            }
+            return opened;
+        }
+
+        private volatile boolean ended;
+
+        private final InputStreamFileInput.Provider provider;
+    }
+
+    private boolean exhausted;
+    private boolean closed;
+
+    private final Iterator<Callable<InputStreamFileInput.InputStreamWithHints>> tasks;
+    private final InputStreamFileInput.Provider provider;
+    private final int maxOpenAhead;
+    private final ArrayDeque<Future<InputStreamFileInput.InputStreamWithHints>> pending;
+    private final ExecutorService executor;
+}
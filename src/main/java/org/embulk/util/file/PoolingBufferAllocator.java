@@ -0,0 +1,246 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+
+// PoolingBufferAllocator wraps a BufferAllocator to reuse Buffers released by release(), instead of dropping them.
+//
+// Buffers allocated by the wrapped allocator are kept in a small cache per thread, and then in a global free list bounded
+// by "maxPooledBuffers". A Buffer overflowing both of them is released to the wrapped allocator.
+//
+// Only Buffers of the wrapped allocator's default size are pooled. allocate(int) for a larger size is passed through.
+public class PoolingBufferAllocator implements BufferAllocator {
+    public PoolingBufferAllocator(final BufferAllocator delegate, final int maxPooledBuffers, final int threadLocalCacheSize) {
+        if (maxPooledBuffers < 0) {
+            throw new IllegalArgumentException("maxPooledBuffers must not be negative.");
+        }
+        if (threadLocalCacheSize < 0) {
+            throw new IllegalArgumentException("threadLocalCacheSize must not be negative.");
+        }
+        this.pooledCapacity = -1;
+
+        this.delegate = delegate;
+        this.maxPooledBuffers = maxPooledBuffers;
+        this.threadLocalCacheSize = threadLocalCacheSize;
+        this.threadLocalCache = ThreadLocal.withInitial(ArrayDeque::new);
+        this.freeList = new ConcurrentLinkedQueue<>();
+        this.freeListSize = new AtomicInteger(0);
+
+        this.threadLocalHits = new LongAdder();
+        this.globalHits = new LongAdder();
+        this.misses = new LongAdder();
+        this.recycled = new LongAdder();
+        this.discarded = new LongAdder();
+        this.passedThrough = new LongAdder();
+    }
+
+    public PoolingBufferAllocator(final BufferAllocator delegate, final int maxPooledBuffers) {
+        this(delegate, maxPooledBuffers, DEFAULT_THREAD_LOCAL_CACHE_SIZE);
+    }
+
+    @Override
+    public Buffer allocate() {
+        return this.wrap(this.takePooled());
+    }
+
+    @Override
+    public Buffer allocate(final int minimumCapacity) {
+        final int pooledCapacity = this.pooledCapacity;
+        if (pooledCapacity >= 0 && minimumCapacity <= pooledCapacity) {
+            return this.allocate();
+        }
+        if (pooledCapacity < 0) {
+            // The default size is unknown until the first allocate().
+            final Buffer pooled = this.takePooled();
+            if (pooled.capacity() >= minimumCapacity) {
+                return this.wrap(pooled);
+            }
+            this.recycle(pooled);
+        }
+        this.passedThrough.increment();
+        return this.delegate.allocate(minimumCapacity);
+    }
+
+    // Releases all Buffers in the global free list, and the cache of the calling thread, to the wrapped allocator.
+    public void clear() {
+        final ArrayDeque<Buffer> cache = this.threadLocalCache.get();
+        while (!cache.isEmpty()) {
+            cache.pollFirst().release();
+        }
+        while (true) {
+            final Buffer buffer = this.freeList.poll();
+            if (buffer == null) {
+                break;
+            }
+            this.freeListSize.decrementAndGet();
+            buffer.release();
+        }
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(
+                this.threadLocalHits.sum(),
+                this.globalHits.sum(),
+                this.misses.sum(),
+                this.recycled.sum(),
+                this.discarded.sum(),
+                this.passedThrough.sum(),
+                this.freeListSize.get());
+    }
+
+    public static final class Statistics {
+        private Statistics(
+                final long threadLocalHits,
+                final long globalHits,
+                final long misses,
+                final long recycled,
+                final long discarded,
+                final long passedThrough,
+                final int pooledInFreeList) {
+            this.threadLocalHits = threadLocalHits;
+            this.globalHits = globalHits;
+            this.misses = misses;
+            this.recycled = recycled;
+            this.discarded = discarded;
+            this.passedThrough = passedThrough;
+            this.pooledInFreeList = pooledInFreeList;
+        }
+
+        // Allocations served from the cache of the allocating thread.
+        public long getThreadLocalHits() {
+            return this.threadLocalHits;
+        }
+
+        // Allocations served from the global free list.
+        public long getGlobalHits() {
+            return this.globalHits;
+        }
+
+        // Allocations which had to allocate a new Buffer from the wrapped allocator.
+        public long getMisses() {
+            return this.misses;
+        }
+
+        // Released Buffers kept for reuse.
+        public long getRecycled() {
+            return this.recycled;
+        }
+
+        // Released Buffers released to the wrapped allocator because the pool was full.
+        public long getDiscarded() {
+            return this.discarded;
+        }
+
+        // Allocations larger than the pooled size, which were passed through to the wrapped allocator.
+        public long getPassedThrough() {
+            return this.passedThrough;
+        }
+
+        public int getPooledInFreeList() {
+            return this.pooledInFreeList;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolingBufferAllocator.Statistics{"
+                    + "threadLocalHits=" + this.threadLocalHits
+                    + ", globalHits=" + this.globalHits
+                    + ", misses=" + this.misses
+                    + ", recycled=" + this.recycled
+                    + ", discarded=" + this.discarded
+                    + ", passedThrough=" + this.passedThrough
+                    + ", pooledInFreeList=" + this.pooledInFreeList
+                    + "}";
+        }
+
+        private final long threadLocalHits;
+        private final long globalHits;
+        private final long misses;
+        private final long recycled;
+        private final long discarded;
+        private final long passedThrough;
+        private final int pooledInFreeList;
+    }
+
+    private Buffer takePooled() {
+        final ArrayDeque<Buffer> cache = this.threadLocalCache.get();
+        final Buffer cached = cache.pollFirst();
+        if (cached != null) {
+            this.threadLocalHits.increment();
+            return cached;
+        }
+        final Buffer free = this.freeList.poll();
+        if (free != null) {
+            this.freeListSize.decrementAndGet();
+            this.globalHits.increment();
+            return free;
+        }
+        this.misses.increment();
+        final Buffer allocated = this.delegate.allocate();
+        if (this.pooledCapacity < 0) {
+            this.pooledCapacity = allocated.capacity();
+        }
+        return allocated;
+    }
+
+    private void recycle(final Buffer pooled) {
+        final ArrayDeque<Buffer> cache = this.threadLocalCache.get();
+        if (cache.size() < this.threadLocalCacheSize) {
+            cache.addFirst(pooled);
+            this.recycled.increment();
+            return;
+        }
+        if (this.freeListSize.incrementAndGet() <= this.maxPooledBuffers) {
+            this.freeList.offer(pooled);
+            this.recycled.increment();
+            return;
+        }
+        this.freeListSize.decrementAndGet();
+        this.discarded.increment();
+        pooled.release();
+    }
+
+    // The Buffer returned to the caller is a view over the pooled Buffer so that its release() comes back to the pool.
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    private Buffer wrap(final Buffer pooled) {
+        return ByteArrayBuffer.create(pooled.array(), pooled.offset(), pooled.capacity(), () -> this.recycle(pooled));
+    }
+
+    private static final int DEFAULT_THREAD_LOCAL_CACHE_SIZE = 4;
+
+    private volatile int pooledCapacity;
+
+    private final BufferAllocator delegate;
+    private final int maxPooledBuffers;
+    private final int threadLocalCacheSize;
+    private final ThreadLocal<ArrayDeque<Buffer>> threadLocalCache;
+    private final ConcurrentLinkedQueue<Buffer> freeList;
+    private final AtomicInteger freeListSize;
+
+    private final LongAdder threadLocalHits;
+    private final LongAdder globalHits;
+    private final LongAdder misses;
+    private final LongAdder recycled;
+    private final LongAdder discarded;
+    private final LongAdder passedThrough;
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+import org.embulk.spi.FileInput;
+
+// PrefetchingInputStreamFileInput works like InputStreamFileInput, but it reads ahead the current file on a background thread.
+//
+// Read-ahead Buffers are queued up to both the number of Buffers and their total capacity. The total capacity may exceed
+// its bound by one Buffer so that a Buffer larger than the bound can still be read.
+//
+// Files are always opened by the Provider on the thread calling nextFile(). Only InputStream#read and BufferAllocator#allocate
+// are called on the background thread.
+//
+// Closing the current file waits for the background thread only for a while. If it is still in InputStream#read, the
+// stream is closed under it to unblock the read. If even that does not unblock it, the thread is interrupted and left
+// behind, and a new background thread reads the next file.
+//
+// A failure in reading the current file is thrown from poll() after the Buffers read before the failure, and then
+// from every following poll() and nextFile() until close().
+public class PrefetchingInputStreamFileInput implements FileInput {
+    public PrefetchingInputStreamFileInput(
+            final BufferAllocator allocator,
+            final InputStreamFileInput.Provider provider,
+            final int maxPrefetchedBuffers,
+            final long maxPrefetchedBytes,
+            final InputStreamFileInput.FillPolicy fillPolicy) {
+        if (maxPrefetchedBuffers <= 0) {
+            throw new IllegalArgumentException("maxPrefetchedBuffers must be positive.");
+        }
+        if (maxPrefetchedBytes <= 0) {
+            throw new IllegalArgumentException("maxPrefetchedBytes must be positive.");
+        }
+        this.current = null;
+        this.readAhead = null;
+        this.readAheadFuture = null;
+
+        this.allocator = allocator;
+        this.provider = provider;
+        this.maxPrefetchedBuffers = maxPrefetchedBuffers;
+        this.maxPrefetchedBytes = maxPrefetchedBytes;
+        this.fillPolicy = fillPolicy;
+        this.executor = newExecutor();
+    }
+
+    public PrefetchingInputStreamFileInput(
+            final BufferAllocator allocator,
+            final InputStreamFileInput.Provider provider,
+            final int maxPrefetchedBuffers,
+            final long maxPrefetchedBytes) {
+        this(allocator, provider, maxPrefetchedBuffers, maxPrefetchedBytes, InputStreamFileInput.FillPolicy.singleRead());
+    }
+
+    public PrefetchingInputStreamFileInput(final BufferAllocator allocator, final InputStreamFileInput.Provider provider) {
+        this(allocator, provider, DEFAULT_MAX_PREFETCHED_BUFFERS, DEFAULT_MAX_PREFETCHED_BYTES);
+    }
+
+    @Override
+    public boolean nextFile() {
+        if (this.readAhead != null) {
+            this.readAhead.throwIfFailed();
+        }
+        try {
+            this.closeCurrent();
+            this.current = this.provider.openNextWithHints();
+            if (this.current == null || this.current.getInputStream() == null) {
+                return false;
+            }
+            this.readAhead = new ReadAhead(this.current.getInputStream());
+            this.readAheadFuture = this.executor.submit(this.readAhead);
+            return true;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Buffer poll() {
+        if (this.readAhead == null) {
+            throw new IllegalStateException("PrefetchingInputStreamFileInput#nextFile() must be called before poll().");
+        }
+        return this.readAhead.take();
+    }
+
+    @Override
+    public void close() {
+        try {
+            try {
+                this.closeCurrent();
+            } finally {
+                this.executor.shutdownNow();
+                this.provider.close();
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Optional<String> hintOfCurrentInputFileNameForLogging() {
+        if (this.current != null) {
+            return this.current.getHintOfCurrentInputFileNameForLogging();
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    private void closeCurrent() throws IOException {
+        final InputStream inputStream = this.current != null ? this.current.getInputStream() : null;
+        this.current = null;
+        boolean closed = false;
+        try {
+            if (this.readAhead != null) {
+                // The background reader is stopped before closing the stream so that the stream is not closed in the middle
+                // of read() on another thread, which not all InputStream implementations can handle, unless the read stalls.
+                this.readAhead.cancel();
+                try {
+                    if (!Futures.awaitUninterruptibly(this.readAheadFuture, STOP_TIMEOUT_MILLIS)) {
+                        closed = true;
+                        inputStream.close();
+                        if (!Futures.awaitUninterruptibly(this.readAheadFuture, STOP_TIMEOUT_MILLIS)) {
+                            this.executor.shutdownNow();
+                            this.executor = newExecutor();
+                        }
+                    }
+                } finally {
+                    // The cancelled reader never queues Buffers any more, even if it is left behind.
+                    this.readAhead.releaseAll();
+                    this.readAhead = null;
+                    this.readAheadFuture = null;
+                }
+            }
+        } finally {
+            if (inputStream != null && !closed) {
+                inputStream.close();
+            }
+        }
+    }
+
+    private final class ReadAhead implements Runnable {
+        ReadAhead(final InputStream inputStream) {
+            this.inputStream = inputStream;
+            this.queue = new ArrayDeque<>();
+            this.queuedBytes = 0L;
+            this.finished = false;
+            this.cancelled = false;
+            this.failure = null;
+            this.lock = new ReentrantLock();
+            this.notEmpty = this.lock.newCondition();
+            this.notFull = this.lock.newCondition();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (this.awaitSpace()) {
+                    Buffer buffer = allocator.allocate();
+                    try {
+                        final int n = fillPolicy.fill(this.inputStream, buffer);
+                        if (n < 0) {
+                            break;
+                        }
+                        buffer.limit(n);
+                        if (this.offer(buffer)) {
+                            buffer = null;
+                        } else {
+                            break;
+                        }
+                    } finally {
+                        if (buffer != null) {
+                            buffer.release();
+                        }
+                    }
+                }
+                this.finish(null);
+            } catch (final Throwable ex) {
+                this.finish(ex);
+            }
+        }
+
+        Buffer take() {
+            this.lock.lock();
+            try {
+                while (this.queue.isEmpty() && !this.finished) {
+                    try {
+                        this.notEmpty.await();
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for a prefetched Buffer."));
+                    }
+                }
+                final Buffer buffer = this.queue.pollFirst();
+                if (buffer != null) {
+                    this.queuedBytes -= buffer.capacity();
+                    this.notFull.signal();
+                    return buffer;
+                }
+                if (this.failure != null) {
+                    // Thrown again at every poll() so that a retried poll() never sees the truncated file as ended.
+                    throw propagate(this.failure);
+                }
+                return null;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        // A failure is thrown at nextFile() even if Buffers read before the failure are left, not to skip a broken file.
+        void throwIfFailed() {
+            this.lock.lock();
+            try {
+                if (this.failure != null) {
+                    throw propagate(this.failure);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void cancel() {
+            this.lock.lock();
+            try {
+                this.cancelled = true;
+                this.notFull.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void releaseAll() {
+            this.lock.lock();
+            try {
+                while (!this.queue.isEmpty()) {
+                    this.queue.pollFirst().release();
+                }
+                this.queuedBytes = 0L;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private boolean awaitSpace() throws InterruptedException {
+            this.lock.lock();
+            try {
+                while (!this.cancelled
+                               && !this.queue.isEmpty()
+                               && (this.queue.size() >= maxPrefetchedBuffers || this.queuedBytes >= maxPrefetchedBytes)) {
+                    this.notFull.await();
+                }
+                return !this.cancelled;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private boolean offer(final Buffer buffer) {
+            this.lock.lock();
+            try {
+                if (this.cancelled) {
+                    return false;
+                }
+                this.queue.addLast(buffer);
+                this.queuedBytes += buffer.capacity();
+                this.notEmpty.signal();
+                return true;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void finish(final Throwable failure) {
+            this.lock.lock();
+            try {
+                this.finished = true;
+                if (!this.cancelled) {
+                    this.failure = failure;
+                }
+                this.notEmpty.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private long queuedBytes;
+        private boolean finished;
+        private boolean cancelled;
+        private Throwable failure;
+
+        private final InputStream inputStream;
+        private final ArrayDeque<Buffer> queue;
+        private final ReentrantLock lock;
+        private final Condition notEmpty;
+        private final Condition notFull;
+    }
+
+    private static ExecutorService newExecutor() {
+        return Executors.newSingleThreadExecutor(new DaemonThreadFactory("embulk-util-file-prefetch"));
+    }
+
+    private static RuntimeException propagate(final Throwable failure) {
+        if (failure instanceof IOException) {
+            return new UncheckedIOException((IOException) failure);
+        } else if (failure instanceof RuntimeException) {
+            return (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return new RuntimeException(failure);
+    }
+
+    private static final int DEFAULT_MAX_PREFETCHED_BUFFERS = 16;
+    private static final long DEFAULT_MAX_PREFETCHED_BYTES = 16L * 1024L * 1024L;
+    private static final long STOP_TIMEOUT_MILLIS = 1000L;
+
+    private InputStreamFileInput.InputStreamWithHints current;
+    private ReadAhead readAhead;
+    private Future<?> readAheadFuture;
+    private ExecutorService executor;
+
+    private final BufferAllocator allocator;
+    private final InputStreamFileInput.Provider provider;
+    private final int maxPrefetchedBuffers;
+    private final long maxPrefetchedBytes;
+    private final InputStreamFileInput.FillPolicy fillPolicy;
+}
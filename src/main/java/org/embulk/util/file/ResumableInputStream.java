@@ -18,18 +18,79 @@ package org.embulk.util.file;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class ResumableInputStream extends InputStream {
-    public ResumableInputStream(final InputStream initialInputStream, final Reopener reopener) {
+    public ResumableInputStream(
+            final InputStream initialInputStream,
+            final Reopener reopener,
+            final RetryPolicy retryPolicy,
+            final long stallTimeout,
+            final TimeUnit stallTimeoutUnit) {
+        if (stallTimeout < 0) {
+            throw new IllegalArgumentException("stallTimeout must not be negative.");
+        }
         this.in = initialInputStream;
+        this.initialOpenPending = initialInputStream == null;
 
         this.offset = 0L;
         this.markedOffset = 0L;
         this.lastClosedCause = null;
         this.closed = false;
+        this.readingStream = null;
+        this.readStartedNanos = 0L;
+        this.abortedStream = null;
+        this.highestOffset = 0L;
+        this.consecutiveFailures = 0;
+        this.reopenCount = 0L;
+        this.failureCount = 0L;
+        this.retryWaitMillis = 0L;
+        this.bytesReread = 0L;
 
         this.reopener = reopener;
+        this.retryPolicy = retryPolicy;
+        this.stallTimeoutNanos = stallTimeoutUnit.toNanos(stallTimeout);
+        if (this.stallTimeoutNanos > 0) {
+            this.watchdog = StallWatchdog.start(this, this.stallTimeoutNanos);
+        } else {
+            this.watchdog = null;
+        }
+    }
+
+    // The first stream is opened at the first read, through the RetryPolicy as reopens are.
+    public ResumableInputStream(
+            final Reopener reopener,
+            final RetryPolicy retryPolicy,
+            final long stallTimeout,
+            final TimeUnit stallTimeoutUnit) throws IOException {
+        this(null, reopener, retryPolicy, stallTimeout, stallTimeoutUnit);
+    }
+
+    public ResumableInputStream(final Reopener reopener, final RetryPolicy retryPolicy) throws IOException {
+        this(reopener, retryPolicy, 0L, TimeUnit.MILLISECONDS);
+    }
+
+    public ResumableInputStream(
+            final InputStream initialInputStream,
+            final Reopener reopener,
+            final long stallTimeout,
+            final TimeUnit stallTimeoutUnit) {
+        this(initialInputStream, reopener, null, stallTimeout, stallTimeoutUnit);
+    }
+
+    public ResumableInputStream(final Reopener reopener, final long stallTimeout, final TimeUnit stallTimeoutUnit) throws IOException {
+        this(reopener.reopen(0, null), reopener, stallTimeout, stallTimeoutUnit);
+    }
+
+    public ResumableInputStream(final InputStream initialInputStream, final Reopener reopener) {
+        this(initialInputStream, reopener, 0L, TimeUnit.MILLISECONDS);
     }
 
     public ResumableInputStream(final Reopener reopener) throws IOException {
@@ -40,44 +101,68 @@ public class ResumableInputStream extends InputStream {
         InputStream reopen(long offset, Exception closedCause) throws IOException;
     }
 
+    // RetryPolicy decides whether, and after how long, to reopen after a failure.
+    //
+    // "attempt" counts failures since the last successful read, starting from 1. A failure of Reopener#reopen itself is
+    // also a failure to be retried. A negative delay gives up, and then the failure is thrown to the caller.
+    //
+    // Without RetryPolicy, ResumableInputStream reopens immediately and endlessly on read failures, and throws when
+    // Reopener#reopen fails, as it has done traditionally.
+    public interface RetryPolicy {
+        long nextDelayMillis(int attempt, Exception cause);
+    }
+
+    // NoProgressException is given to Reopener as "closedCause" when a read made no progress within the stall timeout.
+    //
+    // The stalled stream is closed from another thread to abort the read. The exception which the aborted read threw,
+    // if any, is added as a suppressed exception.
+    public static class NoProgressException extends IOException {
+        public NoProgressException(final String message) {
+            super(message);
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
     @Override
     public int read() throws IOException {
         this.ensureOpened();
         while (true) {
+            final InputStream in = this.in;
             try {
-                final int v = this.in.read();
-                this.offset += 1;
+                this.startRead(in);
+                final int v = in.read();
+                this.endRead(in, v < 0, null);
+                if (v >= 0) {
+                    this.advance(1);
+                }
                 return v;
             } catch (final IOException | RuntimeException ex) {
-                this.reopen(ex);
+                this.reopen(this.endRead(in, true, ex));
             }
         }
     }
 
     @Override
     public int read(final byte[] b) throws IOException {
-        this.ensureOpened();
-        while (true) {
-            try {
-                final int r = in.read(b);
-                this.offset += r;
-                return r;
-            } catch (final IOException | RuntimeException ex) {
-                this.reopen(ex);
-            }
-        }
+        return this.read(b, 0, b.length);
     }
 
     @Override
     public int read(final byte[] b, final int off, final int len) throws IOException {
         this.ensureOpened();
         while (true) {
+            final InputStream in = this.in;
             try {
+                this.startRead(in);
                 final int r = in.read(b, off, len);
-                this.offset += r;
+                this.endRead(in, r < 0, null);
+                if (r > 0) {
+                    this.advance(r);
+                }
                 return r;
             } catch (final IOException | RuntimeException ex) {
-                this.reopen(ex);
+                this.reopen(this.endRead(in, true, ex));
             }
         }
     }
@@ -86,12 +171,15 @@ public class ResumableInputStream extends InputStream {
     public long skip(final long n) throws IOException {
         this.ensureOpened();
         while (true) {
+            final InputStream in = this.in;
             try {
+                this.startRead(in);
                 final long r = in.skip(n);
-                this.offset += r;
+                this.endRead(in, r <= 0, null);  // Skipping nothing is like an end of read() as some streams skip nothing when closed.
+                this.advance(r);
                 return r;
             } catch (final IOException | RuntimeException ex) {
-                this.reopen(ex);
+                this.reopen(this.endRead(in, true, ex));
             }
         }
     }
@@ -104,9 +192,12 @@ public class ResumableInputStream extends InputStream {
 
     @Override
     public void close() throws IOException {
+        if (this.watchdog != null) {
+            this.watchdog.stop();
+        }
+        this.closed = true;
         if (this.in != null) {
             this.in.close();
-            this.closed = true;
             this.in = null;
         }
     }
@@ -139,6 +230,40 @@ public class ResumableInputStream extends InputStream {
         return this.in.markSupported();
     }
 
+    // The number of successful reopens.
+    public long getReopenCount() {
+        return this.reopenCount;
+    }
+
+    // The number of failures of reading and reopening, including ones which were given up.
+    public long getFailureCount() {
+        return this.failureCount;
+    }
+
+    // The total time waited before retries, in milliseconds.
+    public long getRetryWaitMillis() {
+        return this.retryWaitMillis;
+    }
+
+    // The number of bytes read again after reset() moved the offset back.
+    //
+    // A Reopener which reopens exactly at the given offset makes retries re-read nothing by themselves.
+    public long getBytesReread() {
+        return this.bytesReread;
+    }
+
+    private void advance(final long n) {
+        final long start = this.offset;
+        this.offset += n;
+        if (start < this.highestOffset) {
+            this.bytesReread += Math.min(this.offset, this.highestOffset) - start;
+        }
+        if (this.offset > this.highestOffset) {
+            this.highestOffset = this.offset;
+        }
+        this.consecutiveFailures = 0;
+    }
+
     private void reopen(final Exception closedCause) throws IOException {
         if (this.in != null) {
             this.lastClosedCause = closedCause;
@@ -149,8 +274,55 @@ public class ResumableInputStream extends InputStream {
             }
             this.in = null;
         }
-        this.in = this.reopener.reopen(this.offset, closedCause);
-        this.lastClosedCause = null;
+        if (this.retryPolicy == null) {
+            this.failureCount++;
+            this.in = this.reopener.reopen(this.offset, closedCause);
+            this.reopenCount++;
+            this.lastClosedCause = null;
+            return;
+        }
+
+        Exception cause = closedCause;
+        while (true) {
+            this.failureCount++;
+            this.consecutiveFailures++;
+            final long delayMillis = this.retryPolicy.nextDelayMillis(this.consecutiveFailures, cause);
+            if (delayMillis < 0) {
+                this.lastClosedCause = cause;
+                throw giveUp(cause);
+            }
+            this.sleep(delayMillis);
+            try {
+                this.in = this.reopener.reopen(this.offset, cause);
+                this.reopenCount++;
+                this.lastClosedCause = null;
+                return;
+            } catch (final IOException | RuntimeException ex) {
+                cause = ex;
+            }
+        }
+    }
+
+    private void sleep(final long millis) throws InterruptedIOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to reopen.");
+        }
+        this.retryWaitMillis += millis;
+    }
+
+    private static IOException giveUp(final Exception cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
     }
 
     private void ensureOpened() throws IOException {
@@ -158,7 +330,127 @@ public class ResumableInputStream extends InputStream {
             if (this.closed) {
                 throw new IOException("InputStream in ResumableInputStream is unexpectedly closed.");
             }
-            this.reopen(this.lastClosedCause);
+            if (this.initialOpenPending) {
+                this.openInitially();
+            } else {
+                this.reopen(this.lastClosedCause);
+            }
+        }
+    }
+
+    // A failure of the first open is retried as a failure of reading is.
+    private void openInitially() throws IOException {
+        try {
+            this.in = this.reopener.reopen(0L, null);
+        } catch (final IOException | RuntimeException ex) {
+            if (this.retryPolicy == null) {
+                throw ex;
+            }
+            this.reopen(ex);
+        } finally {
+            if (this.in != null) {
+                this.initialOpenPending = false;
+            }
+        }
+    }
+
+    private void startRead(final InputStream in) {
+        if (this.watchdog != null) {
+            // The start time is written first so that the watchdog never sees this stream with the start time of the last read.
+            this.readStartedNanos = System.nanoTime();
+            this.readingStream = in;
+        }
+    }
+
+    // Returns NoProgressException instead of the failure if the stream was aborted by the watchdog during the read.
+    //
+    // An end of the stream is also a failure if the stream was aborted, as some streams return -1 when closed while reading.
+    private Exception endRead(final InputStream in, final boolean failedOrEnded, final Exception failure) throws NoProgressException {
+        if (this.watchdog == null) {
+            return failure;
+        }
+        this.readingStream = null;
+        if (this.abortedStream != in || !failedOrEnded) {
+            return failure;
+        }
+        this.abortedStream = null;
+        final NoProgressException noProgress = new NoProgressException(
+                "No progress in reading for " + TimeUnit.NANOSECONDS.toMillis(this.stallTimeoutNanos) + " ms at offset " + this.offset + ".");
+        if (failure != null) {
+            noProgress.addSuppressed(failure);
+            return noProgress;
+        }
+        throw noProgress;
+    }
+
+    // Called from the watchdog thread. The stream is closed on another thread as close() of a stalled stream, such as
+    // a socket, may block as well, which should never stop the shared watchdog thread checking other streams.
+    private void abortIfStalled(final long nowNanos) {
+        final InputStream reading = this.readingStream;
+        if (reading == null || this.abortedStream == reading) {
+            return;
+        }
+        if (nowNanos - this.readStartedNanos < this.stallTimeoutNanos || this.readingStream != reading) {
+            return;
+        }
+        this.abortedStream = reading;
+        Scheduler.ABORTER.execute(() -> {
+            try {
+                reading.close();
+            } catch (final IOException | RuntimeException ex) {
+                // Passing through intentionally as the read is going to be retried anyway.
+            }
+        });
+    }
+
+    // StallWatchdog checks a ResumableInputStream periodically on a shared daemon thread.
+    //
+    // It refers to the ResumableInputStream weakly so that a ResumableInputStream left unclosed can be garbage-collected.
+    private static final class StallWatchdog implements Runnable {
+        private StallWatchdog(final ResumableInputStream target) {
+            this.target = new WeakReference<>(target);
+            this.future = null;
+        }
+
+        static StallWatchdog start(final ResumableInputStream target, final long stallTimeoutNanos) {
+            final StallWatchdog watchdog = new StallWatchdog(target);
+            final long intervalNanos = Math.max(stallTimeoutNanos / 4, MIN_CHECK_INTERVAL_NANOS);
+            watchdog.future = Scheduler.INSTANCE.scheduleWithFixedDelay(watchdog, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+            return watchdog;
+        }
+
+        @Override
+        public void run() {
+            final ResumableInputStream target = this.target.get();
+            if (target == null) {
+                this.stop();
+                return;
+            }
+            target.abortIfStalled(System.nanoTime());
+        }
+
+        void stop() {
+            final ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        private static final long MIN_CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+        private volatile ScheduledFuture<?> future;
+
+        private final WeakReference<ResumableInputStream> target;
+    }
+
+    private static class Scheduler {  // Initialization-on-demand holder idiom.
+        private static final ScheduledThreadPoolExecutor INSTANCE;
+        private static final ExecutorService ABORTER;
+
+        static {
+            INSTANCE = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("embulk-util-file-stall-watchdog"));
+            INSTANCE.setRemoveOnCancelPolicy(true);
+            ABORTER = Executors.newCachedThreadPool(new DaemonThreadFactory("embulk-util-file-stall-abort"));
         }
     }
 
@@ -167,7 +459,20 @@ public class ResumableInputStream extends InputStream {
     private long offset;
     private long markedOffset;
     private Exception lastClosedCause;
+    private boolean initialOpenPending;
     private boolean closed;
+    private volatile InputStream readingStream;
+    private volatile long readStartedNanos;
+    private volatile InputStream abortedStream;
+    private long highestOffset;
+    private int consecutiveFailures;
+    private long reopenCount;
+    private long failureCount;
+    private long retryWaitMillis;
+    private long bytesReread;
 
     private final Reopener reopener;
+    private final RetryPolicy retryPolicy;
+    private final long stallTimeoutNanos;
+    private final StallWatchdog watchdog;
 }
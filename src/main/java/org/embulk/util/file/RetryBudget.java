@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// RetryBudget caps the total number of retries. It can be shared by multiple streams so that a backend in trouble is not
+// hammered by retries from every stream at once.
+public final class RetryBudget {
+    public RetryBudget(final long maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative.");
+        }
+        this.maxRetries = maxRetries;
+        this.used = new AtomicLong(0L);
+        this.rejected = new AtomicLong(0L);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            final long current = this.used.get();
+            if (current >= this.maxRetries) {
+                this.rejected.incrementAndGet();
+                return false;
+            }
+            if (this.used.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public long getUsed() {
+        return this.used.get();
+    }
+
+    public long getRemaining() {
+        return Math.max(0L, this.maxRetries - this.used.get());
+    }
+
+    // The number of retries given up because the budget was exhausted.
+    public long getRejected() {
+        return this.rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget{used=" + this.used.get() + ", maxRetries=" + this.maxRetries + ", rejected=" + this.rejected.get() + "}";
+    }
+
+    private final long maxRetries;
+    private final AtomicLong used;
+    private final AtomicLong rejected;
+}
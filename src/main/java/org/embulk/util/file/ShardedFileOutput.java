@@ -0,0 +1,226 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+
+// ShardedFileOutput distributes Buffers across multiple OutputStreamFileOutput.Providers which are written concurrently.
+//
+// Each shard is written by WriteBehindFileOutput on its own writer thread. With ROUND_ROBIN and LEAST_BYTES, nextFile()
+// opens the next file on every shard, and each Buffer is added to one of the shards. A Buffer is never split, but
+// consecutive Buffers go to different shards. They can be used only when every Buffer holds whole records, for example
+// Buffers added by an encoder per record. A record spanning Buffers, as FileOutputOutputStream writes, is split across
+// shards. PER_FILE, the default, keeps each file whole in one shard for such callers.
+//
+// Once a shard fails, the failure is thrown from every following nextFile(), add() and finish() so that files opened
+// or written partially on the other shards are never finished. close() closes every shard, discarding what is not
+// finished, and throws the first failure with the rest suppressed.
+public class ShardedFileOutput implements FileOutput {
+    public ShardedFileOutput(
+            final List<? extends OutputStreamFileOutput.Provider> providers,
+            final Selection selection,
+            final int maxQueuedBuffersPerShard) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("providers must not be empty.");
+        }
+        if (maxQueuedBuffersPerShard <= 0) {
+            throw new IllegalArgumentException("maxQueuedBuffersPerShard must be positive.");
+        }
+        this.nextShard = 0;
+        this.fileShard = -1;
+        this.failure = null;
+        this.closed = false;
+
+        this.selection = selection;
+        this.shards = new ArrayList<>(providers.size());
+        this.bytesInFile = new long[providers.size()];
+        try {
+            for (final OutputStreamFileOutput.Provider provider : providers) {
+                this.shards.add(new WriteBehindFileOutput(provider, maxQueuedBuffersPerShard));
+            }
+        } catch (final RuntimeException ex) {
+            this.closeAll(ex);
+            throw ex;
+        }
+    }
+
+    public ShardedFileOutput(final List<? extends OutputStreamFileOutput.Provider> providers, final Selection selection) {
+        this(providers, selection, DEFAULT_MAX_QUEUED_BUFFERS_PER_SHARD);
+    }
+
+    public ShardedFileOutput(final List<? extends OutputStreamFileOutput.Provider> providers) {
+        this(providers, Selection.PER_FILE);
+    }
+
+    public enum Selection {
+        // Shards are selected in turn.
+        ROUND_ROBIN,
+
+        // The shard with the fewest bytes added in the current file is selected, which evens out Buffers of varied sizes.
+        LEAST_BYTES,
+
+        // Each file goes whole to one shard, selected in turn by files. Only the selected shard opens the file.
+        PER_FILE,
+        ;
+    }
+
+    @Override
+    public void nextFile() {
+        this.throwIfFailed();
+        try {
+            if (this.selection == Selection.PER_FILE) {
+                final int shard = this.nextShard;
+                this.nextShard = (shard + 1) % this.shards.size();
+                this.fileShard = -1;
+                this.shards.get(shard).nextFile();
+                this.fileShard = shard;
+                return;
+            }
+            this.fileShard = -1;
+            for (int i = 0; i < this.shards.size(); i++) {
+                this.shards.get(i).nextFile();
+                this.bytesInFile[i] = 0L;
+            }
+            this.nextShard = 0;
+            this.fileShard = 0;
+        } catch (final RuntimeException ex) {
+            this.failure = ex;
+            throw ex;
+        }
+    }
+
+    @Override
+    public void add(final Buffer buffer) {
+        try {
+            this.throwIfFailed();
+            if (this.fileShard < 0) {
+                throw new IllegalStateException("ShardedFileOutput#nextFile() must be called before add().");
+            }
+        } catch (final RuntimeException ex) {
+            buffer.release();
+            throw ex;
+        }
+        final int shard = this.selectShard();
+        this.bytesInFile[shard] += buffer.limit();
+        try {
+            this.shards.get(shard).add(buffer);
+        } catch (final RuntimeException ex) {
+            this.failure = ex;
+            throw ex;
+        }
+    }
+
+    @Override
+    public void finish() {
+        this.throwIfFailed();
+        RuntimeException failure = null;
+        for (final WriteBehindFileOutput shard : this.shards) {
+            try {
+                shard.finish();
+            } catch (final RuntimeException ex) {
+                failure = suppress(failure, ex);
+            }
+        }
+        this.fileShard = -1;
+        if (failure != null) {
+            this.failure = failure;
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.fileShard = -1;
+        this.closeAll(null);
+    }
+
+    public int getShardCount() {
+        return this.shards.size();
+    }
+
+    private int selectShard() {
+        switch (this.selection) {
+            case ROUND_ROBIN: {
+                final int shard = this.nextShard;
+                this.nextShard = (shard + 1) % this.shards.size();
+                return shard;
+            }
+            case LEAST_BYTES: {
+                int least = 0;
+                for (int i = 1; i < this.bytesInFile.length; i++) {
+                    if (this.bytesInFile[i] < this.bytesInFile[least]) {
+                        least = i;
+                    }
+                }
+                return least;
+            }
+            case PER_FILE: {
+                return this.fileShard;
+            }
+            default:  // Never default as all enums are listed.
+                throw new IllegalStateException("Unknown selection: " + this.selection);
+        }
+    }
+
+    private void throwIfFailed() {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    private void closeAll(final RuntimeException cause) {
+        RuntimeException failure = cause;
+        for (final WriteBehindFileOutput shard : this.shards) {
+            try {
+                shard.close();
+            } catch (final RuntimeException ex) {
+                failure = suppress(failure, ex);
+            }
+        }
+        if (failure != null && failure != cause) {
+            throw failure;
+        }
+    }
+
+    private static RuntimeException suppress(final RuntimeException first, final RuntimeException ex) {
+        if (first == null) {
+            return ex;
+        }
+        if (first != ex) {
+            first.addSuppressed(ex);
+        }
+        return first;
+    }
+
+    private static final int DEFAULT_MAX_QUEUED_BUFFERS_PER_SHARD = 16;
+
+    private int nextShard;
+    private int fileShard;  // The shard of the current file with PER_FILE, or 0 with the others. -1 when no file is open.
+    private RuntimeException failure;
+    private boolean closed;
+
+    private final Selection selection;
+    private final ArrayList<WriteBehindFileOutput> shards;
+    private final long[] bytesInFile;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.embulk.spi.Buffer;
+
+// SharedBuffer counts references to a Buffer shared by slices, and releases the Buffer when the last reference is released.
+//
+// Slices may be released on other threads than the one which created them.
+final class SharedBuffer {
+    SharedBuffer(final Buffer buffer) {
+        this.buffer = buffer;
+        this.references = new AtomicInteger(1);
+    }
+
+    // Creates a slice from "index" relative to the offset of the shared Buffer, which has "length" bytes filled.
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    Buffer slice(final int index, final int length) {
+        this.references.incrementAndGet();
+        final Buffer slice = ByteArrayBuffer.create(this.buffer.array(), this.buffer.offset() + index, length, this::release);
+        slice.limit(length);
+        return slice;
+    }
+
+    void release() {
+        if (this.references.decrementAndGet() == 0) {
+            this.buffer.release();
+        }
+    }
+
+    private final Buffer buffer;
+    private final AtomicInteger references;
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+
+// WriteBehindFileOutput passes Buffers to a FileOutput running on a dedicated writer thread through a bounded queue.
+//
+// nextFile(), add() and finish() are executed on the writer thread in the order they are called. add() blocks only when
+// "maxQueuedBuffers" Buffers are waiting. finish() waits until everything queued is written.
+//
+// A failure on the writer thread is thrown from the next nextFile(), add(), finish() or close(). Buffers queued after
+// a failure are released without being written.
+public class WriteBehindFileOutput implements FileOutput {
+    public WriteBehindFileOutput(final FileOutput delegate, final int maxQueuedBuffers) {
+        if (maxQueuedBuffers <= 0) {
+            throw new IllegalArgumentException("maxQueuedBuffers must be positive.");
+        }
+        this.failure = null;
+        this.failureThrown = false;
+        this.discarding = false;
+        this.closed = false;
+
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(maxQueuedBuffers);
+        this.executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("embulk-util-file-write-behind"));
+        this.writer = this.executor.submit(this::runWriter);
+    }
+
+    public WriteBehindFileOutput(final OutputStreamFileOutput.Provider provider, final int maxQueuedBuffers) {
+        this(new OutputStreamFileOutput(provider), maxQueuedBuffers);
+    }
+
+    @Override
+    public void nextFile() {
+        this.throwIfFailed();
+        this.put(Command.NEXT_FILE);
+    }
+
+    @Override
+    public void add(final Buffer buffer) {
+        try {
+            this.throwIfFailed();
+        } catch (final RuntimeException ex) {
+            buffer.release();
+            throw ex;
+        }
+        this.put(new Command(CommandType.ADD, buffer));
+    }
+
+    @Override
+    public void finish() {
+        this.throwIfFailed();
+        final Command finish = new Command(CommandType.FINISH, null);
+        this.put(finish);
+        finish.awaitDone();
+        this.throwIfFailed();
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        boolean stopQueued = false;
+        try {
+            // Buffers still queued at close() without finish() are discarded as OutputStreamFileOutput would lose them too.
+            this.discarding = true;
+            this.put(Command.STOP);
+            stopQueued = true;
+        } finally {
+            try {
+                if (!stopQueued) {
+                    // Queued Buffers are released here to make room for STOP, instead of interrupting the writer which
+                    // the delegate may swallow. Only this thread adds to the queue, so the room is never taken.
+                    this.releaseQueued();
+                    this.queue.offer(Command.STOP);
+                }
+                // The writer is always waited for so that the delegate is never closed while the writer is still using it,
+                // and Buffers are never released while being written. The interruption is restored after waiting.
+                Futures.awaitUninterruptibly(this.writer);
+            } finally {
+                this.executor.shutdownNow();
+                this.releaseQueued();
+                this.delegate.close();
+            }
+        }
+        if (!this.failureThrown) {
+            this.throwIfFailed();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            final Command command;
+            try {
+                command = this.queue.take();
+            } catch (final InterruptedException ex) {
+                return;  // Interrupted only by shutdownNow() in close().
+            }
+            if (command.type == CommandType.STOP) {
+                return;
+            }
+            try {
+                if (this.failure != null || this.discarding) {
+                    if (command.buffer != null) {
+                        command.buffer.release();
+                    }
+                    continue;
+                }
+                switch (command.type) {
+                    case NEXT_FILE:
+                        this.delegate.nextFile();
+                        break;
+                    case ADD:
+                        this.delegate.add(command.buffer);
+                        break;
+                    case FINISH:
+                        this.delegate.finish();
+                        break;
+                    default:  // Never default as all enums are listed.
+                }
+            } catch (final RuntimeException | Error ex) {
+                this.failure = ex;
+            } finally {
+                command.markDone();
+            }
+        }
+    }
+
+    private void put(final Command command) {
+        try {
+            this.queue.put(command);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            if (command.buffer != null) {
+                command.buffer.release();
+            }
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while queuing for the writer thread."));
+        }
+    }
+
+    private void releaseQueued() {
+        while (true) {
+            final Command command = this.queue.poll();
+            if (command == null) {
+                return;
+            }
+            if (command.buffer != null) {
+                command.buffer.release();
+            }
+        }
+    }
+
+    private void throwIfFailed() {
+        final Throwable failure = this.failure;
+        if (failure == null) {
+            return;
+        }
+        this.failureThrown = true;
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw (RuntimeException) failure;
+    }
+
+    private enum CommandType {
+        NEXT_FILE,
+        ADD,
+        FINISH,
+        STOP,
+        ;
+    }
+
+    private static final class Command {
+        Command(final CommandType type, final Buffer buffer) {
+            this.type = type;
+            this.buffer = buffer;
+            this.done = new CountDownLatch(1);
+        }
+
+        void markDone() {
+            this.done.countDown();
+        }
+
+        void awaitDone() {
+            try {
+                this.done.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for the writer thread."));
+            }
+        }
+
+        static final Command NEXT_FILE = new Command(CommandType.NEXT_FILE, null);
+        static final Command STOP = new Command(CommandType.STOP, null);
+
+        private final CommandType type;
+        private final Buffer buffer;
+        private final CountDownLatch done;
+    }
+
+    private volatile Throwable failure;
+    private boolean failureThrown;
+    private volatile boolean discarding;
+    private boolean closed;
+
+    private final FileOutput delegate;
+    private final BlockingQueue<Command> queue;
+    private final ExecutorService executor;
+    private final Future<?> writer;
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// ZipCoderPool keeps Deflaters or Inflaters for reuse by tasks on worker threads, and ends them all at close().
+//
+// Unlike ThreadLocal, it never leaves coders with native zlib memory on worker threads of a shared executor. A coder
+// returned after close(), by a task still running at close(), is ended immediately.
+final class ZipCoderPool<T> {
+    ZipCoderPool(final Supplier<T> factory, final Consumer<T> ender) {
+        this.closed = false;
+
+        this.factory = factory;
+        this.ender = ender;
+        this.pooled = new ArrayDeque<>();
+    }
+
+    T take() {
+        synchronized (this.pooled) {
+            final T coder = this.pooled.pollFirst();
+            if (coder != null) {
+                return coder;
+            }
+        }
+        return this.factory.get();
+    }
+
+    void giveBack(final T coder) {
+        synchronized (this.pooled) {
+            if (!this.closed) {
+                this.pooled.addFirst(coder);
+                return;
+            }
+        }
+        this.ender.accept(coder);
+    }
+
+    void close() {
+        synchronized (this.pooled) {
+            this.closed = true;
+            while (!this.pooled.isEmpty()) {
+                this.ender.accept(this.pooled.pollFirst());
+            }
+        }
+    }
+
+    int getPooledCount() {
+        synchronized (this.pooled) {
+            return this.pooled.size();
+        }
+    }
+
+    private boolean closed;
+
+    private final Supplier<T> factory;
+    private final Consumer<T> ender;
+    private final ArrayDeque<T> pooled;
+}
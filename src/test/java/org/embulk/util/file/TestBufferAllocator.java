@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+
+// Allocates heap Buffers, and counts Buffers not released yet to find leaks in failure paths.
+final class TestBufferAllocator implements BufferAllocator {
+    TestBufferAllocator(final int pageSize) {
+        this.pageSize = pageSize;
+        this.unreleased = new AtomicInteger(0);
+    }
+
+    @Override
+    public Buffer allocate() {
+        return this.allocate(this.pageSize);
+    }
+
+    @Override
+    public Buffer allocate(final int minimumCapacity) {
+        final int capacity = Math.max(this.pageSize, minimumCapacity);
+        this.unreleased.incrementAndGet();
+        return ByteArrayBuffer.create(new byte[capacity], 0, capacity, this.unreleased::decrementAndGet);
+    }
+
+    int getUnreleased() {
+        return this.unreleased.get();
+    }
+
+    // Creates a Buffer over a copy of the bytes, which is not counted.
+    static Buffer wrap(final byte[] bytes) {
+        final Buffer buffer = ByteArrayBuffer.create(bytes.clone(), 0, bytes.length, null);
+        buffer.limit(bytes.length);
+        return buffer;
+    }
+
+    // Copies out the bytes of the Buffer, and releases the Buffer.
+    static byte[] toBytesAndRelease(final Buffer buffer) {
+        final byte[] bytes = new byte[buffer.limit()];
+        buffer.getBytes(0, bytes, 0, bytes.length);
+        buffer.release();
+        return bytes;
+    }
+
+    private final int pageSize;
+    private final AtomicInteger unreleased;
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.embulk.spi.Buffer;
+import org.junit.jupiter.api.Test;
+
+public class TestBufferSizing {
+    @Test
+    public void testGrowsAfterQuickFullFills() {
+        final InputStreamFileInput.BufferSizing.Sizer sizer = InputStreamFileInput.BufferSizing.adaptive(4, 20).newSizer();
+        final List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            sizes.add(sizer.size());
+            sizer.observe(sizer.size(), QUICK);
+        }
+        assertEquals(Arrays.asList(4, 4, 8, 8, 16, 16, 20, 20), sizes);  // Capped at the maximum.
+    }
+
+    @Test
+    public void testShrinksAfterShortOrSlowFills() {
+        final InputStreamFileInput.BufferSizing.Sizer sizer = grown(InputStreamFileInput.BufferSizing.adaptive(4, 16));
+        assertEquals(16, sizer.size());
+
+        sizer.observe(8, QUICK);  // Filled up to a half.
+        assertEquals(16, sizer.size());
+        sizer.observe(2, QUICK);
+        assertEquals(8, sizer.size());
+
+        sizer.observe(8, SLOW);  // Full, but slow.
+        sizer.observe(8, SLOW);
+        assertEquals(4, sizer.size());
+
+        sizer.observe(1, QUICK);
+        sizer.observe(1, QUICK);
+        assertEquals(4, sizer.size());  // Not below the minimum.
+    }
+
+    @Test
+    public void testFillsBetweenHalfAndFullKeepSize() {
+        final InputStreamFileInput.BufferSizing.Sizer sizer = InputStreamFileInput.BufferSizing.adaptive(8, 64).newSizer();
+        sizer.observe(8, QUICK);
+        sizer.observe(6, QUICK);  // Resets the quick full fills in a row.
+        sizer.observe(8, QUICK);
+        assertEquals(8, sizer.size());
+        sizer.observe(2, QUICK);
+        sizer.observe(6, QUICK);  // Resets the short fills in a row.
+        sizer.observe(2, QUICK);
+        assertEquals(8, sizer.size());
+    }
+
+    @Test
+    public void testCeilingAfterShrinkIsReset() {
+        final InputStreamFileInput.BufferSizing.Sizer sizer = grown(InputStreamFileInput.BufferSizing.adaptive(4, 16));
+        sizer.observe(0, SLOW);
+        sizer.observe(0, SLOW);
+        assertEquals(8, sizer.size());
+
+        // It does not grow back to the size just found too large for a while.
+        for (int i = 0; i < 63; i++) {
+            sizer.observe(8, QUICK);
+            assertEquals(8, sizer.size());
+        }
+        sizer.observe(8, QUICK);  // The 64th poll after shrinking resets the ceiling.
+        assertEquals(16, sizer.size());
+    }
+
+    @Test
+    public void testAdaptiveInputStreamFileInput() {
+        final byte[] source = new byte[100];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = (byte) i;
+        }
+        final TestBufferAllocator allocator = new TestBufferAllocator(1);
+        final List<Integer> sizes = new ArrayList<>();
+        final ByteArrayOutputStream read = new ByteArrayOutputStream();
+        try (final InputStreamFileInput input = new InputStreamFileInput(
+                allocator,
+                new InputStreamFileInput.IteratorProvider(Arrays.<InputStream>asList(new ByteArrayInputStream(source))),
+                InputStreamFileInput.FillPolicy.toCapacity(),
+                InputStreamFileInput.BufferSizing.adaptive(4, 16).withSlowFillThreshold(1L, TimeUnit.HOURS))) {
+            assertTrue(input.nextFile());
+            while (true) {
+                final Buffer buffer = input.poll();
+                if (buffer == null) {
+                    break;
+                }
+                final byte[] bytes = TestBufferAllocator.toBytesAndRelease(buffer);
+                sizes.add(bytes.length);
+                read.write(bytes, 0, bytes.length);
+            }
+        }
+        assertEquals(Arrays.asList(4, 4, 8, 8, 16, 16, 16, 16, 12), sizes);
+        assertArrayEquals(source, read.toByteArray());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testConfiguration() {
+        assertFalse(InputStreamFileInput.BufferSizing.fixed().isAdaptive());
+        final InputStreamFileInput.BufferSizing adaptive = InputStreamFileInput.BufferSizing.adaptive(4, 4).withSlowFillThreshold(5L, TimeUnit.SECONDS);
+        assertTrue(adaptive.isAdaptive());
+        assertEquals(TimeUnit.SECONDS.toNanos(5L), adaptive.getSlowFillNanos());
+
+        assertThrows(IllegalArgumentException.class, () -> InputStreamFileInput.BufferSizing.adaptive(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> InputStreamFileInput.BufferSizing.adaptive(8, 4));
+        assertThrows(IllegalArgumentException.class, () -> adaptive.withSlowFillThreshold(0L, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> InputStreamFileInput.BufferSizing.fixed().withSlowFillThreshold(1L, TimeUnit.SECONDS));
+    }
+
+    private static InputStreamFileInput.BufferSizing.Sizer grown(final InputStreamFileInput.BufferSizing sizing) {
+        final InputStreamFileInput.BufferSizing.Sizer sizer = sizing.newSizer();
+        while (sizer.size() < sizing.getMaximumSize()) {
+            sizer.observe(sizer.size(), QUICK);
+        }
+        return sizer;
+    }
+
+    private static final long QUICK = 0L;
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1L);
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+import org.junit.jupiter.api.Test;
+
+// Tests FileInputReadableByteChannel and FileOutputWritableByteChannel.
+public class TestByteChannels {
+    @Test
+    public void testReadAcrossBuffersIntoDirectByteBuffer() throws IOException {
+        final byte[] first = bytes(25, 1);
+        final byte[] second = bytes(3, 2);
+        final TestFileInput input = new TestFileInput(TestFileInput.chunks(first, 10), TestFileInput.chunks(second, 10));
+        try (final FileInputReadableByteChannel channel = new FileInputReadableByteChannel(input)) {
+            assertTrue(channel.nextFile());
+            final ByteBuffer dst = ByteBuffer.allocateDirect(16);
+            assertEquals(16, channel.read(dst));  // Filled across Buffers.
+            assertEquals(0, channel.read(dst));  // Nothing is read into a full ByteBuffer.
+            dst.clear();
+            assertEquals(9, channel.read(dst));  // Short at the end of the file.
+            assertEquals(-1, channel.read(dst));
+            dst.flip();
+            final byte[] tail = new byte[9];
+            dst.get(tail);
+            assertArrayEquals(Arrays.copyOfRange(first, 16, 25), tail);
+
+            assertTrue(channel.nextFile());  // The next file starts without the rest of the previous one.
+            final ByteBuffer heap = ByteBuffer.allocate(8);
+            assertEquals(3, channel.read(heap));
+            assertArrayEquals(second, Arrays.copyOf(heap.array(), 3));
+            assertFalse(channel.nextFile());
+        }
+        assertTrue(input.isClosed());
+    }
+
+    @Test
+    public void testScatteringRead() throws IOException {
+        final byte[] source = bytes(20, 3);
+        try (final FileInputReadableByteChannel channel = new FileInputReadableByteChannel(new TestFileInput(TestFileInput.chunks(source, 7)))) {
+            assertTrue(channel.nextFile());
+            final ByteBuffer[] dsts = new ByteBuffer[] { ByteBuffer.allocate(1), ByteBuffer.allocate(8), ByteBuffer.allocateDirect(4), ByteBuffer.allocate(16) };
+            assertThrows(IndexOutOfBoundsException.class, () -> channel.read(dsts, 3, 2));
+            assertEquals(13L, channel.read(dsts, 0, 3));
+            assertEquals(7L, channel.read(dsts));  // The full ByteBuffers are skipped.
+            assertEquals(-1L, channel.read(dsts));
+
+            final ByteBuffer all = ByteBuffer.allocate(20);
+            for (final ByteBuffer dst : dsts) {
+                dst.flip();
+                all.put(dst);
+            }
+            assertArrayEquals(source, all.array());
+        }
+    }
+
+    @Test
+    public void testClosedReadableChannel() throws IOException {
+        final FileInputReadableByteChannel channel = new FileInputReadableByteChannel(new TestFileInput(new byte[][] { bytes(5, 4) }));
+        assertTrue(channel.nextFile());
+        assertEquals(2, channel.read(ByteBuffer.allocate(2)));
+        channel.close();
+        channel.close();
+        assertFalse(channel.isOpen());
+        assertThrows(ClosedChannelException.class, () -> channel.read(ByteBuffer.allocate(2)));
+        assertThrows(ClosedChannelException.class, () -> channel.nextFile());
+    }
+
+    @Test
+    public void testWriteIntoFullBuffers() throws IOException {
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final CollectingFileOutput output = new CollectingFileOutput();
+        final byte[] source = bytes(30, 5);
+        try (final FileOutputWritableByteChannel channel = new FileOutputWritableByteChannel(
+                output, allocator, FileOutputOutputStream.CloseMode.FLUSH_FINISH_CLOSE)) {
+            channel.nextFile();
+            final ByteBuffer direct = ByteBuffer.allocateDirect(20);
+            direct.put(source, 0, 20).flip();
+            assertEquals(20, channel.write(direct));
+            assertFalse(direct.hasRemaining());
+            assertEquals(10L, channel.write(new ByteBuffer[] { ByteBuffer.wrap(source, 20, 3), ByteBuffer.allocate(0), ByteBuffer.wrap(source, 23, 7) }));
+            assertEquals(Arrays.asList(8, 8, 8), output.sizes);
+            channel.flush();
+            channel.flush();  // Nothing to flush.
+            assertEquals(Arrays.asList(8, 8, 8, 6), output.sizes);
+
+            channel.write(ByteBuffer.wrap(source, 0, 3));
+            channel.finish();
+            channel.nextFile();
+            channel.write(ByteBuffer.wrap(source, 3, 2));  // Written after finish() into the next file.
+        }
+        assertEquals(2, output.files.size());
+        final byte[] first = output.files.get(0).toByteArray();
+        assertArrayEquals(source, Arrays.copyOf(first, 30));
+        assertArrayEquals(Arrays.copyOf(source, 3), Arrays.copyOfRange(first, 30, 33));
+        assertArrayEquals(Arrays.copyOfRange(source, 3, 5), output.files.get(1).toByteArray());
+        assertEquals(2, output.finished);
+        assertTrue(output.closed);
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testCloseModes() throws IOException {
+        for (final FileOutputOutputStream.CloseMode closeMode : FileOutputOutputStream.CloseMode.values()) {
+            final TestBufferAllocator allocator = new TestBufferAllocator(8);
+            final CollectingFileOutput output = new CollectingFileOutput();
+            final FileOutputWritableByteChannel channel = new FileOutputWritableByteChannel(output, allocator, closeMode);
+            channel.nextFile();
+            channel.write(ByteBuffer.wrap(bytes(3, 6)));
+            channel.close();
+            channel.close();
+            assertFalse(channel.isOpen());
+            assertThrows(ClosedChannelException.class, () -> channel.write(ByteBuffer.allocate(1)));
+
+            final boolean flushed = closeMode != FileOutputOutputStream.CloseMode.CLOSE;
+            assertEquals(flushed ? 3 : 0, output.files.get(0).size(), closeMode.toString());
+            assertEquals(flushed && closeMode != FileOutputOutputStream.CloseMode.FLUSH ? 1 : 0, output.finished, closeMode.toString());
+            assertEquals(closeMode == FileOutputOutputStream.CloseMode.FLUSH_FINISH_CLOSE || !flushed, output.closed, closeMode.toString());
+            assertEquals(0, allocator.getUnreleased(), closeMode.toString());
+        }
+    }
+
+    private static class CollectingFileOutput implements FileOutput {
+        CollectingFileOutput() {
+            this.files = new ArrayList<>();
+            this.sizes = new ArrayList<>();
+        }
+
+        @Override
+        public void nextFile() {
+            this.files.add(new ByteArrayOutputStream());
+        }
+
+        @Override
+        public void add(final Buffer buffer) {
+            final byte[] bytes = TestBufferAllocator.toBytesAndRelease(buffer);
+            this.sizes.add(bytes.length);
+            this.files.get(this.files.size() - 1).write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void finish() {
+            this.finished++;
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+
+        private int finished;
+        private boolean closed;
+
+        private final List<ByteArrayOutputStream> files;
+        private final List<Integer> sizes;
+    }
+
+    private static byte[] bytes(final int length, final int seed) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 13 + seed);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class TestDelimitedRecordReader {
+    @Test
+    public void testRecordsInOneBuffer() {
+        assertEquals(Arrays.asList("a", "bc", "def"), readAll("a\nbc\ndef\n", 100, DelimitedRecordReader.Delimiter.lineFeed()));
+    }
+
+    @Test
+    public void testRecordSpanningBuffers() {
+        // Split at every chunk size, so that records and delimiters are split at every position across Buffers.
+        final String text = "first record\nsecond\nthe third record spans\n";
+        for (int size = 1; size <= text.length(); size++) {
+            assertEquals(Arrays.asList("first record", "second", "the third record spans"),
+                         readAll(text, size, DelimitedRecordReader.Delimiter.lineFeed()), "chunk size: " + size);
+        }
+    }
+
+    @Test
+    public void testMultiByteDelimiterSplitAcrossBuffers() {
+        final String text = "a<=>bb<=><=<=>c<=><=>";
+        final DelimitedRecordReader.Delimiter delimiter = DelimitedRecordReader.Delimiter.of("<=>".getBytes(StandardCharsets.UTF_8));
+        for (int size = 1; size <= text.length(); size++) {
+            assertEquals(Arrays.asList("a", "bb", "<=", "c", ""), readAll(text, size, delimiter), "chunk size: " + size);
+        }
+    }
+
+    @Test
+    public void testCrlf() {
+        final String text = "a\r\nb\nc\r\r\nd\r";
+        for (int size = 1; size <= text.length(); size++) {
+            assertEquals(Arrays.asList("a", "b", "c\r", "d"), readAll(text, size, DelimitedRecordReader.Delimiter.lineFeedOrCrlf()), "chunk size: " + size);
+            assertEquals(Arrays.asList("a", "b\nc\r", "d\r"), readAll(text, size, DelimitedRecordReader.Delimiter.crlf()), "chunk size: " + size);
+            assertEquals(Arrays.asList("a\r", "b", "c\r\r", "d\r"), readAll(text, size, DelimitedRecordReader.Delimiter.lineFeed()), "chunk size: " + size);
+        }
+    }
+
+    @Test
+    public void testLastRecordWithoutDelimiter() {
+        for (int size = 1; size <= 8; size++) {
+            assertEquals(Arrays.asList("ab", "cdefg"), readAll("ab\ncdefg", size, DelimitedRecordReader.Delimiter.lineFeed()), "chunk size: " + size);
+        }
+    }
+
+    @Test
+    public void testEmptyRecords() {
+        for (int size = 1; size <= 5; size++) {
+            assertEquals(Arrays.asList("", "", "a", ""), readAll("\n\na\n\n", size, DelimitedRecordReader.Delimiter.lineFeed()), "chunk size: " + size);
+        }
+        assertEquals(Arrays.asList(), readAll("", 1, DelimitedRecordReader.Delimiter.lineFeed()));
+    }
+
+    @Test
+    public void testFiles() {
+        final TestFileInput input = new TestFileInput(
+                TestFileInput.chunks(bytes("a\nb"), 2),
+                new byte[0][],
+                TestFileInput.chunks(bytes("cc\ndd"), 4));
+        final DelimitedRecordReader reader = new DelimitedRecordReader(input);
+        assertNull(reader.nextRecord());  // Before nextFile().
+        assertTrue(reader.nextFile());
+        final DelimitedRecordReader.Record first = reader.nextRecord();
+        assertArrayEquals(bytes("a"), first.toByteArray());
+        assertSame(first, reader.nextRecord());  // The Record is reused.
+        assertEquals("b", first.toString(StandardCharsets.UTF_8));
+        assertNull(reader.nextRecord());
+        assertNull(reader.nextRecord());
+
+        assertTrue(reader.nextFile());
+        assertNull(reader.nextRecord());
+
+        assertTrue(reader.nextFile());
+        assertEquals("cc", reader.nextRecord().toString(StandardCharsets.UTF_8));  // The rest of the file is dropped at nextFile().
+        assertFalse(reader.nextFile());
+        reader.close();
+        assertTrue(input.isClosed());
+    }
+
+    @Test
+    public void testEmptyDelimiter() {
+        assertThrows(IllegalArgumentException.class, () -> DelimitedRecordReader.Delimiter.of(new byte[0]));
+    }
+
+    private static List<String> readAll(final String text, final int chunkSize, final DelimitedRecordReader.Delimiter delimiter) {
+        final DelimitedRecordReader reader = new DelimitedRecordReader(new TestFileInput(TestFileInput.chunks(bytes(text), chunkSize)), delimiter);
+        final List<String> records = new ArrayList<>();
+        assertTrue(reader.nextFile());
+        while (true) {
+            final DelimitedRecordReader.Record record = reader.nextRecord();
+            if (record == null) {
+                break;
+            }
+            records.add(record.toString(StandardCharsets.UTF_8));
+        }
+        assertFalse(reader.nextFile());
+        reader.close();
+        return records;
+    }
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
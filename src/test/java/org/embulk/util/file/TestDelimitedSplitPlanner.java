@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.embulk.spi.FileInput;
+import org.junit.jupiter.api.Test;
+
+public class TestDelimitedSplitPlanner {
+    @Test
+    public void testSplitsStartAfterDelimiters() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append("record-").append(i).append(i % 7 == 0 ? "-longer" : "").append('\n');
+        }
+        final byte[] source = bytes(text.toString());
+        final DelimitedRecordReader.Delimiter delimiter = DelimitedRecordReader.Delimiter.lineFeed();
+        final DelimitedSplitPlanner planner = planner(source, delimiter);
+        final List<String> records = readAll(new DelimitedRecordReader(new TestFileInput(new byte[][] { source }), delimiter));
+        for (int numberOfSplits = 1; numberOfSplits <= 40; numberOfSplits++) {
+            final List<DelimitedSplitPlanner.Split> splits = planner.plan(numberOfSplits);
+            assertCovers(source, splits, "\n");
+            assertTrue(splits.size() <= numberOfSplits);
+            assertEquals(records, readSplits(planner, splits, delimiter), "splits: " + splits);
+        }
+    }
+
+    @Test
+    public void testRecordLongerThanSplit() throws IOException {
+        // The nominal boundaries in the long record find no delimiter until the next nominal boundary, and are dropped.
+        final byte[] source = bytes("a\n" + repeat('x', 100) + "\nb\nc\n");
+        final DelimitedSplitPlanner planner = planner(source, DelimitedRecordReader.Delimiter.lineFeed());
+        final List<DelimitedSplitPlanner.Split> splits = planner.plan(10);
+        assertCovers(source, splits, "\n");
+        assertTrue(splits.size() < 10);
+        assertEquals(Arrays.asList("a", repeat('x', 100), "b", "c"), readSplits(planner, splits, DelimitedRecordReader.Delimiter.lineFeed()));
+
+        // A single record without any delimiter is never split.
+        final byte[] single = bytes(repeat('y', 50));
+        assertEquals(Arrays.asList(new DelimitedSplitPlanner.Split(0L, 50L)), planner(single, DelimitedRecordReader.Delimiter.lineFeed()).plan(5));
+    }
+
+    @Test
+    public void testMultiByteDelimiter() throws IOException {
+        final byte[] source = bytes("aa<=>bbbb<=>c<=>dddddd<=>e<=>ff");
+        final DelimitedRecordReader.Delimiter delimiter = DelimitedRecordReader.Delimiter.of(bytes("<=>"));
+        final DelimitedSplitPlanner planner = planner(source, delimiter);
+        for (int numberOfSplits = 1; numberOfSplits <= source.length; numberOfSplits++) {
+            final List<DelimitedSplitPlanner.Split> splits = planner.plan(numberOfSplits);
+            assertCovers(source, splits, "<=>");
+            assertEquals(Arrays.asList("aa", "bbbb", "c", "dddddd", "e", "ff"), readSplits(planner, splits, delimiter), "splits: " + splits);
+        }
+    }
+
+    @Test
+    public void testOpenIsBounded() throws IOException {
+        final byte[] source = bytes("0123456789");
+        final DelimitedSplitPlanner planner = planner(source, DelimitedRecordReader.Delimiter.lineFeed());
+        try (final InputStream in = planner.open(new DelimitedSplitPlanner.Split(3L, 7L))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] bytes = new byte[16];
+            int n;
+            while ((n = in.read(bytes)) >= 0) {
+                out.write(bytes, 0, n);
+            }
+            assertArrayEquals(bytes("3456"), out.toByteArray());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedSplitPlanner(null, -1L, DelimitedRecordReader.Delimiter.lineFeed()));
+        assertThrows(IllegalArgumentException.class, () -> planner(new byte[1], DelimitedRecordReader.Delimiter.lineFeed()).plan(0));
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedSplitPlanner.Split(2L, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedSplitPlanner.Split(-1L, 1L));
+    }
+
+    private static DelimitedSplitPlanner planner(final byte[] source, final DelimitedRecordReader.Delimiter delimiter) {
+        return new DelimitedSplitPlanner(
+                (offset, cause) -> new ByteArrayInputStream(source, (int) offset, source.length - (int) offset), source.length, delimiter, "source");
+    }
+
+    // Asserts that the splits cover the source in order without gaps, and that each split but the first starts after a delimiter.
+    private static void assertCovers(final byte[] source, final List<DelimitedSplitPlanner.Split> splits, final String delimiter) {
+        long expectedStart = 0L;
+        for (final DelimitedSplitPlanner.Split split : splits) {
+            assertEquals(expectedStart, split.getStart(), "splits: " + splits);
+            assertTrue(split.getLength() > 0, "splits: " + splits);
+            if (split.getStart() > 0) {
+                final String before = new String(source, (int) split.getStart() - delimiter.length(), delimiter.length(), StandardCharsets.UTF_8);
+                assertEquals(delimiter, before, "splits: " + splits);
+            }
+            expectedStart = split.getEnd();
+        }
+        assertEquals((long) source.length, expectedStart);
+    }
+
+    private static List<String> readSplits(
+            final DelimitedSplitPlanner planner,
+            final List<DelimitedSplitPlanner.Split> splits,
+            final DelimitedRecordReader.Delimiter delimiter) {
+        final List<String> records = new ArrayList<>();
+        for (final DelimitedSplitPlanner.Split split : splits) {
+            final TestBufferAllocator allocator = new TestBufferAllocator(4);
+            final FileInput input = planner.newFileInput(allocator, split);
+            records.addAll(readAll(new DelimitedRecordReader(input, delimiter)));
+            assertEquals(0, allocator.getUnreleased());
+        }
+        return records;
+    }
+
+    private static List<String> readAll(final DelimitedRecordReader reader) {
+        final List<String> records = new ArrayList<>();
+        assertTrue(reader.nextFile());
+        while (true) {
+            final DelimitedRecordReader.Record record = reader.nextRecord();
+            if (record == null) {
+                break;
+            }
+            records.add(record.toString(StandardCharsets.UTF_8));
+        }
+        assertFalse(reader.nextFile());
+        reader.close();
+        return records;
+    }
+
+    private static String repeat(final char c, final int count) {
+        final char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
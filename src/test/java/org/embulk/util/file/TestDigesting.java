@@ -0,0 +1,182 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Checksum;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+import org.junit.jupiter.api.Test;
+
+// Tests Crc32c, DigestingFileInput and DigestingFileOutput.
+public class TestDigesting {
+    @Test
+    public void testCrc32cKnownAnswers() {
+        assertEquals(0xe3069283L, crc32c(new Crc32c(), CHECK));
+        assertEquals(0xe3069283L, crc32c(Crc32c.newChecksum(), CHECK));
+        assertEquals(0x00000000L, crc32c(new Crc32c(), new byte[0]));
+        assertEquals(0x8a9136aaL, crc32c(new Crc32c(), new byte[32]));  // 32 bytes of zeros, from RFC 3720.
+        final byte[] ones = new byte[32];
+        Arrays.fill(ones, (byte) 0xff);
+        assertEquals(0x62a8ab43L, crc32c(new Crc32c(), ones));  // 32 bytes of 0xff, from RFC 3720.
+    }
+
+    @Test
+    public void testCrc32cSlicedEqualsBytewise() {
+        final byte[] bytes = new byte[1000];
+        new Random(42L).nextBytes(bytes);
+        for (int offset = 0; offset < 9; offset++) {
+            for (final int length : new int[] { 0, 1, 7, 8, 9, 15, 16, 17, 100, 991 }) {
+                final Crc32c sliced = new Crc32c();
+                sliced.update(bytes, offset, length);
+                final Crc32c bytewise = new Crc32c();
+                for (int i = offset; i < offset + length; i++) {
+                    bytewise.update(bytes[i]);
+                }
+                assertEquals(bytewise.getValue(), sliced.getValue(), "offset: " + offset + ", length: " + length);
+            }
+        }
+        final Crc32c split = new Crc32c();
+        split.update(CHECK, 0, 3);
+        split.update(CHECK, 3, 6);
+        assertEquals(0xe3069283L, split.getValue());
+        split.reset();
+        assertEquals(0x00000000L, split.getValue());
+    }
+
+    @Test
+    public void testFileInput() {
+        final List<FileDigests> digested = new ArrayList<>();
+        final DigestingFileInput input = new DigestingFileInput(
+                new TestFileInput(TestFileInput.chunks(CHECK, 4), TestFileInput.chunks(CHECK, 2), TestFileInput.chunks(CHECK, 9)),
+                EnumSet.allOf(DigestAlgorithm.class),
+                digested::add);
+        assertFalse(input.getLastFileDigests().isPresent());
+        assertTrue(input.nextFile());
+        TestFileInput.readFile(input);
+        final FileDigests first = input.getLastFileDigests().get();
+        assertKnownAnswers(first);
+        assertTrue(first.isComplete());
+        assertEquals(9L, first.getBytes());
+
+        assertTrue(input.nextFile());
+        input.poll().release();
+        assertTrue(input.nextFile());  // The second file is digested in the middle.
+        assertFalse(digested.get(1).isComplete());
+        assertEquals(2L, digested.get(1).getBytes());
+        assertEquals(crc32c(new Crc32c(), new byte[] { '1', '2' }), toLong(digested.get(1).getDigest(DigestAlgorithm.CRC32C).get()));
+
+        TestFileInput.readFile(input);
+        assertKnownAnswers(digested.get(2));  // The digests are reset for each file.
+        assertFalse(input.nextFile());
+        assertEquals(3, digested.size());
+        input.close();
+    }
+
+    @Test
+    public void testFileOutput() {
+        final List<FileDigests> digested = new ArrayList<>();
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final DigestingFileOutput output = new DigestingFileOutput(new FileOutput() {
+                @Override
+                public void nextFile() {
+                }
+
+                @Override
+                public void add(final Buffer buffer) {
+                    buffer.release();  // Released in add() after it is digested.
+                }
+
+                @Override
+                public void finish() {
+                }
+
+                @Override
+                public void close() {
+                }
+            }, EnumSet.allOf(DigestAlgorithm.class), digested::add);
+        output.finish();  // Nothing is digested without a file.
+        assertTrue(digested.isEmpty());
+        for (int file = 0; file < 2; file++) {
+            output.nextFile();
+            for (final byte[] chunk : TestFileInput.chunks(CHECK, 5)) {
+                final Buffer buffer = allocator.allocate();
+                buffer.setBytes(0, chunk, 0, chunk.length);
+                buffer.limit(chunk.length);
+                output.add(buffer);
+            }
+        }
+        output.finish();
+        output.close();
+        assertEquals(2, digested.size());
+        for (final FileDigests digests : digested) {
+            assertKnownAnswers(digests);
+            assertTrue(digests.isComplete());
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testSelectedAlgorithms() {
+        final DigestingFileInput input = new DigestingFileInput(new TestFileInput(new byte[][] { CHECK }), DigestAlgorithm.CRC32);
+        assertTrue(input.nextFile());
+        TestFileInput.readFile(input);
+        final FileDigests digests = input.getLastFileDigests().get();
+        assertEquals("cbf43926", digests.getHexDigest(DigestAlgorithm.CRC32).get());
+        assertFalse(digests.getDigest(DigestAlgorithm.MD5).isPresent());
+        assertEquals("FileDigests{bytes=9, CRC32=cbf43926}", digests.toString());
+
+        digests.getDigest(DigestAlgorithm.CRC32).get()[0] = 0;  // A copy is returned.
+        assertEquals("cbf43926", digests.getHexDigest(DigestAlgorithm.CRC32).get());
+
+        assertThrows(IllegalArgumentException.class, () -> new DigestingFileInput(new TestFileInput(), EnumSet.noneOf(DigestAlgorithm.class)));
+    }
+
+    private static void assertKnownAnswers(final FileDigests digests) {
+        assertEquals("cbf43926", digests.getHexDigest(DigestAlgorithm.CRC32).get());
+        assertEquals("e3069283", digests.getHexDigest(DigestAlgorithm.CRC32C).get());
+        assertEquals("25f9e794323b453885f5181f1b624d0b", digests.getHexDigest(DigestAlgorithm.MD5).get());
+        assertEquals("15e2b0d3c33891ebb0f1ef609ec419420c20e320ce94c65fbc8c3312448eb225", digests.getHexDigest(DigestAlgorithm.SHA_256).get());
+        assertArrayEquals(new byte[] { (byte) 0xe3, 0x06, (byte) 0x92, (byte) 0x83 }, digests.getDigest(DigestAlgorithm.CRC32C).get());
+    }
+
+    private static long crc32c(final Checksum checksum, final byte[] bytes) {
+        checksum.update(bytes, 0, bytes.length);
+        return checksum.getValue();
+    }
+
+    private static long toLong(final byte[] bigEndian) {
+        long value = 0L;
+        for (final byte b : bigEndian) {
+            value = (value << 8) | (b & 0xff);
+        }
+        return value;
+    }
+
+    private static final byte[] CHECK = "123456789".getBytes(StandardCharsets.US_ASCII);
+}
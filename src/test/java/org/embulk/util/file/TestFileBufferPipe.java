@@ -0,0 +1,221 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+import org.embulk.spi.FileOutput;
+import org.junit.jupiter.api.Test;
+
+public class TestFileBufferPipe {
+    @Test
+    public void testHandOff() throws Exception {
+        final FileBufferPipe pipe = new FileBufferPipe(4);
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> producer = executor.submit(() -> {
+                try (final FileOutput output = pipe.getFileOutput()) {
+                    for (int file = 0; file < 3; file++) {
+                        output.nextFile();
+                        for (int i = 0; i < 100 * file; i++) {
+                            output.add(buffer(allocator, file, i));
+                        }
+                    }
+                    output.finish();
+                }
+            });
+            try (final FileInput input = pipe.getFileInput()) {
+                for (int file = 0; file < 3; file++) {
+                    assertTrue(input.nextFile());
+                    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+                    for (int i = 0; i < 100 * file; i++) {
+                        expected.write(TestBufferAllocator.toBytesAndRelease(buffer(allocator, file, i)), 0, 2);
+                    }
+                    assertArrayEquals(expected.toByteArray(), TestFileInput.readFile(input));
+                    assertNull(input.poll());  // Stays at the end of the file until nextFile().
+                }
+                assertFalse(input.nextFile());
+                assertFalse(input.nextFile());
+            }
+            producer.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testBackpressureAtCapacity() throws Exception {
+        final FileBufferPipe pipe = new FileBufferPipe(3);  // Rounded up to 4 slots, one of which is for nextFile().
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final AtomicInteger added = new AtomicInteger(0);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> producer = executor.submit(() -> {
+                final FileOutput output = pipe.getFileOutput();
+                output.nextFile();
+                for (int i = 0; i < 6; i++) {
+                    output.add(buffer(allocator, 0, i));
+                    added.incrementAndGet();
+                }
+                output.finish();
+                output.close();
+            });
+            waitUntil(() -> added.get() == 3);
+            Thread.sleep(100L);
+            assertEquals(3, added.get());  // Waiting for a free slot.
+
+            final FileInput input = pipe.getFileInput();
+            assertTrue(input.nextFile());
+            input.poll().release();
+            waitUntil(() -> added.get() == 5);  // Two slots are freed by nextFile() and poll().
+            assertEquals(5, TestFileInput.readFile(input).length / 2);
+            assertFalse(input.nextFile());
+            producer.get(10, TimeUnit.SECONDS);
+            input.close();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testOutputClosedWithoutFinish() throws Exception {
+        final FileBufferPipe pipe = new FileBufferPipe(8);
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final FileInput input = pipe.getFileInput();
+            final Future<Buffer> blocked = executor.submit(() -> {
+                assertTrue(input.nextFile());
+                final Buffer first = input.poll();
+                first.release();
+                return input.poll();  // Blocked until the FileOutput is closed.
+            });
+            final FileOutput output = pipe.getFileOutput();
+            output.nextFile();
+            output.add(buffer(allocator, 0, 0));
+            Thread.sleep(100L);
+            output.close();  // The producer failed without finish().
+
+            final ExecutionException thrown = assertThrows(ExecutionException.class, () -> blocked.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(UncheckedIOException.class, thrown.getCause());
+            assertThrows(UncheckedIOException.class, () -> input.nextFile());
+            input.close();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testInputClosedWhileOutputIsBlocked() throws Exception {
+        final FileBufferPipe pipe = new FileBufferPipe(2);
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final AtomicInteger added = new AtomicInteger(0);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> producer = executor.submit(() -> {
+                try (final FileOutput output = pipe.getFileOutput()) {
+                    output.nextFile();
+                    while (true) {
+                        output.add(buffer(allocator, 0, added.get()));
+                        added.incrementAndGet();
+                    }
+                }
+            });
+            waitUntil(() -> added.get() == 1);
+            pipe.getFileInput().close();
+
+            final ExecutionException thrown = assertThrows(ExecutionException.class, () -> producer.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, thrown.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, allocator.getUnreleased());  // The Buffer in the ring, and the Buffer being added, are released.
+    }
+
+    @Test
+    public void testInterruptedWhileWaiting() throws Exception {
+        final FileBufferPipe pipe = new FileBufferPipe(2);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Boolean> blocked = executor.submit(() -> pipe.getFileInput().nextFile());
+            Thread.sleep(100L);
+            blocked.cancel(true);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        final FileBufferPipe other = new FileBufferPipe(2);
+        Thread.currentThread().interrupt();
+        try {
+            final UncheckedIOException thrown = assertThrows(UncheckedIOException.class, () -> other.getFileInput().nextFile());
+            assertInstanceOf(InterruptedIOException.class, thrown.getCause());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testMisuse() {
+        assertThrows(IllegalArgumentException.class, () -> new FileBufferPipe(0));
+        final FileBufferPipe pipe = new FileBufferPipe(4);
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        assertThrows(IllegalStateException.class, () -> pipe.getFileOutput().add(allocator.allocate()));
+        pipe.getFileOutput().finish();
+        assertThrows(IllegalStateException.class, () -> pipe.getFileOutput().nextFile());
+        assertThrows(IllegalStateException.class, () -> pipe.getFileInput().poll());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    private static Buffer buffer(final TestBufferAllocator allocator, final int file, final int index) {
+        final Buffer buffer = allocator.allocate();
+        buffer.setBytes(0, new byte[] { (byte) file, (byte) index }, 0, 2);
+        buffer.limit(2);
+        return buffer;
+    }
+
+    private static void waitUntil(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out.");
+            Thread.sleep(1L);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestFileCache {
+    @Test
+    public void testLeastRecentlyUsedIsEvicted(@TempDir final Path directory) throws IOException {
+        final FileCache cache = new FileCache(directory, 25L);
+        fillAll(cache, "a", bytes(10, 1));
+        fillAll(cache, "b", bytes(10, 2));
+        assertTrue(cache.lookup("a").isPresent());  // "a" becomes more recently used than "b".
+
+        fillAll(cache, "c", bytes(10, 3));
+        assertTrue(cache.lookup("a").isPresent());
+        assertFalse(cache.lookup("b").isPresent());
+        assertTrue(cache.lookup("c").isPresent());
+        assertEquals(20L, cache.getTotalBytes());
+        assertEquals(2, cache.getEntryCount());
+    }
+
+    @Test
+    public void testFilledBySingleByteReads(@TempDir final Path directory) throws IOException {
+        final FileCache cache = new FileCache(directory, 1024L * 1024L);
+        final byte[] source = bytes(100000, 7);
+        try (final InputStream in = cache.fill("key", new ByteArrayInputStream(source), source.length)) {
+            for (int i = 0; i < source.length; i++) {
+                assertEquals(source[i] & 0xff, in.read());
+            }
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(source, Files.readAllBytes(cache.lookup("key").get()));
+    }
+
+    @Test
+    public void testPartialOrOversizedFillIsNotCached(@TempDir final Path directory) throws IOException {
+        final FileCache cache = new FileCache(directory, 100L);
+        try (final InputStream in = cache.fill("partial", new ByteArrayInputStream(bytes(50, 1)), 50L)) {
+            assertEquals(10, in.read(new byte[10]));
+        }
+        fillAll(cache, "oversized", bytes(200, 2));
+        assertFalse(cache.lookup("partial").isPresent());
+        assertFalse(cache.lookup("oversized").isPresent());
+        assertEquals(0L, cache.getTotalBytes());
+        try (final Stream<Path> files = Files.list(directory)) {
+            assertEquals(0L, files.count());  // No temporary file is left.
+        }
+    }
+
+    @Test
+    public void testTruncatedFillIsNotCached(@TempDir final Path directory) throws IOException {
+        final FileCache cache = new FileCache(directory, 100L);
+        try (final InputStream in = cache.fill("truncated", new ByteArrayInputStream(bytes(30, 1)), 50L)) {
+            final byte[] chunk = new byte[7];
+            while (in.read(chunk) >= 0) {
+                // Reading through until the source ends early.
+            }
+        }
+        assertFalse(cache.lookup("truncated").isPresent());
+        assertEquals(0, cache.getEntryCount());
+        try (final Stream<Path> files = Files.list(directory)) {
+            assertEquals(0L, files.count());
+        }
+    }
+
+    @Test
+    public void testEntriesSurviveOverInstances(@TempDir final Path directory) throws IOException {
+        fillAll(new FileCache(directory, 100L), "a", bytes(10, 1));
+        Files.write(directory.resolve("left-by-crash.tmp"), bytes(5, 0));
+
+        final FileCache reopened = new FileCache(directory, 100L);
+        assertArrayEquals(bytes(10, 1), Files.readAllBytes(reopened.lookup("a").get()));
+        assertFalse(Files.exists(directory.resolve("left-by-crash.tmp")));
+    }
+
+    private static void fillAll(final FileCache cache, final String key, final byte[] source) throws IOException {
+        try (final InputStream in = cache.fill(key, new ByteArrayInputStream(source), source.length)) {
+            final byte[] chunk = new byte[7];
+            while (in.read(chunk) >= 0) {
+                // Reading through.
+            }
+        }
+    }
+
+    private static byte[] bytes(final int length, final int seed) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+}
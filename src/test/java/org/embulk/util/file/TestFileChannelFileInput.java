@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.embulk.spi.Buffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestFileChannelFileInput {
+    @Test
+    public void testPositionalRead(@TempDir final Path directory) throws IOException {
+        assertReadsFiles(directory, FileChannelFileInput.ReadMode.POSITIONAL_READ);
+    }
+
+    @Test
+    public void testMemoryMapped(@TempDir final Path directory) throws IOException {
+        assertReadsFiles(directory, FileChannelFileInput.ReadMode.MEMORY_MAPPED);
+    }
+
+    @Test
+    public void testBuffersAreFilledToReadSize(@TempDir final Path directory) throws IOException {
+        for (final FileChannelFileInput.ReadMode readMode : FileChannelFileInput.ReadMode.values()) {
+            final Path path = write(directory, "a-" + readMode, bytes(30, 1));
+            final TestBufferAllocator allocator = new TestBufferAllocator(1);
+            try (final FileChannelFileInput input = new FileChannelFileInput(allocator, Arrays.asList(path).iterator(), readMode, 7, 5)) {
+                assertTrue(input.nextFile());
+                for (final int expected : new int[] { 7, 7, 7, 7, 2 }) {
+                    final Buffer buffer = input.poll();
+                    assertEquals(expected, buffer.limit(), readMode.toString());
+                    buffer.release();
+                }
+                assertNull(input.poll());
+            }
+            assertEquals(0, allocator.getUnreleased());
+        }
+    }
+
+    @Test
+    public void testHint(@TempDir final Path directory) throws IOException {
+        final Path path = write(directory, "a", bytes(3, 1));
+        try (final FileChannelFileInput input = new FileChannelFileInput(new TestBufferAllocator(16), Arrays.asList(path))) {
+            assertFalse(input.hintOfCurrentInputFileNameForLogging().isPresent());
+            assertTrue(input.nextFile());
+            assertEquals(path.toString(), input.hintOfCurrentInputFileNameForLogging().get());
+            assertFalse(input.nextFile());
+            assertFalse(input.hintOfCurrentInputFileNameForLogging().isPresent());
+        }
+    }
+
+    @Test
+    public void testMisuse(@TempDir final Path directory) {
+        final TestBufferAllocator allocator = new TestBufferAllocator(16);
+        try (final FileChannelFileInput input = new FileChannelFileInput(allocator, Arrays.asList(directory.resolve("missing")))) {
+            assertThrows(IllegalStateException.class, () -> input.poll());
+            assertThrows(UncheckedIOException.class, () -> input.nextFile());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new FileChannelFileInput(
+                allocator, Arrays.<Path>asList().iterator(), FileChannelFileInput.ReadMode.POSITIONAL_READ, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new FileChannelFileInput(
+                allocator, Arrays.<Path>asList().iterator(), FileChannelFileInput.ReadMode.MEMORY_MAPPED, 1, 0));
+    }
+
+    // Reads a file across mapping windows and Buffers, an empty file, and a file shorter than a Buffer.
+    private static void assertReadsFiles(final Path directory, final FileChannelFileInput.ReadMode readMode) throws IOException {
+        final byte[][] contents = new byte[][] { bytes(100, 1), bytes(0, 2), bytes(3, 3) };
+        final Path[] paths = new Path[contents.length];
+        for (int i = 0; i < contents.length; i++) {
+            paths[i] = write(directory, "file" + i, contents[i]);
+        }
+        final TestBufferAllocator allocator = new TestBufferAllocator(1);
+        try (final FileChannelFileInput input = new FileChannelFileInput(allocator, Arrays.asList(paths).iterator(), readMode, 16, 24)) {
+            for (final byte[] content : contents) {
+                assertTrue(input.nextFile());
+                assertArrayEquals(content, TestFileInput.readFile(input));
+                assertNull(input.poll());
+            }
+            assertFalse(input.nextFile());
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    private static Path write(final Path directory, final String name, final byte[] content) throws IOException {
+        return Files.write(directory.resolve(name), content);
+    }
+
+    private static byte[] bytes(final int length, final int seed) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestFileChannelPartUploader {
+    @Test
+    public void testComplete(@TempDir final Path directory) throws IOException {
+        final Path target = directory.resolve("target");
+        final FileChannelPartUploader uploader = new FileChannelPartUploader(target);
+        uploader.uploadPart(2, 3L, ByteBuffer.wrap("def".getBytes(StandardCharsets.UTF_8)));
+        uploader.uploadPart(1, 0L, ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)));
+        uploader.complete(2, 6L);
+        assertArrayEquals("abcdef".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(target));
+        assertEquals(1L, countFiles(directory));
+    }
+
+    @Test
+    public void testFailedMoveDeletesTemporary(@TempDir final Path directory) throws IOException {
+        final Path target = directory.resolve("target");
+        final FileChannelPartUploader uploader = new FileChannelPartUploader(target);
+        uploader.uploadPart(1, 0L, ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)));
+        Files.createDirectory(target);
+        Files.createFile(target.resolve("blocking"));  // A non-empty directory cannot be replaced.
+        assertThrows(IOException.class, () -> uploader.complete(1, 3L));
+        assertEquals(1L, countFiles(directory));
+    }
+
+    @Test
+    public void testMissingPartIsRejected(@TempDir final Path directory) throws IOException {
+        final Path target = directory.resolve("target");
+        final FileChannelPartUploader uploader = new FileChannelPartUploader(target);
+        uploader.uploadPart(1, 0L, ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)));
+        uploader.uploadPart(3, 6L, ByteBuffer.wrap("ghi".getBytes(StandardCharsets.UTF_8)));  // The file size is as expected.
+        assertThrows(IOException.class, () -> uploader.complete(3, 9L));
+        assertEquals(0L, countFiles(directory));
+    }
+
+    private static long countFiles(final Path directory) throws IOException {
+        try (final Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+
+// Serves files as the given chunks, one Buffer for each chunk, to control where Buffers are split.
+class TestFileInput implements FileInput {
+    TestFileInput(final byte[][]... files) {
+        this.fileIndex = -1;
+        this.chunkIndex = 0;
+        this.closed = false;
+
+        this.files = Arrays.asList(files);
+    }
+
+    @Override
+    public boolean nextFile() {
+        this.fileIndex++;
+        this.chunkIndex = 0;
+        return this.fileIndex < this.files.size();
+    }
+
+    @Override
+    public Buffer poll() {
+        final byte[][] chunks = this.files.get(this.fileIndex);
+        if (this.chunkIndex >= chunks.length) {
+            return null;
+        }
+        return TestBufferAllocator.wrap(chunks[this.chunkIndex++]);
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+    }
+
+    @Override
+    public Optional<String> hintOfCurrentInputFileNameForLogging() {
+        return Optional.of("file" + this.fileIndex);
+    }
+
+    boolean isClosed() {
+        return this.closed;
+    }
+
+    // Splits the bytes into chunks of the size.
+    static byte[][] chunks(final byte[] bytes, final int size) {
+        final byte[][] chunks = new byte[(bytes.length + size - 1) / size][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = Arrays.copyOfRange(bytes, i * size, Math.min(bytes.length, (i + 1) * size));
+        }
+        return chunks;
+    }
+
+    // Reads the rest of the current file, releasing the Buffers.
+    static byte[] readFile(final FileInput input) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (true) {
+            final Buffer buffer = input.poll();
+            if (buffer == null) {
+                return out.toByteArray();
+            }
+            final byte[] bytes = TestBufferAllocator.toBytesAndRelease(buffer);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private int fileIndex;
+    private int chunkIndex;
+    private volatile boolean closed;
+
+    private final List<byte[][]> files;
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+import org.junit.jupiter.api.Test;
+
+public class TestFileInputInputStream {
+    @Test
+    public void testSharedBufferIsReleasedByLastReference() throws InterruptedException {
+        final TestBufferAllocator allocator = new TestBufferAllocator(16);
+        final Buffer buffer = allocator.allocate();
+        buffer.setBytes(0, bytes(16), 0, 16);
+        buffer.limit(16);
+
+        final SharedBuffer shared = new SharedBuffer(buffer);
+        final Buffer first = shared.slice(2, 3);
+        final Buffer second = shared.slice(10, 6);
+        assertArrayEquals(Arrays.copyOfRange(bytes(16), 2, 5), TestBufferAllocator.toBytesAndRelease(first));
+        first.release();  // Released only once.
+        shared.release();
+        assertEquals(1, allocator.getUnreleased());
+
+        final byte[][] released = new byte[1][];
+        final Thread thread = new Thread(() -> released[0] = TestBufferAllocator.toBytesAndRelease(second));
+        thread.start();
+        thread.join();
+        assertArrayEquals(Arrays.copyOfRange(bytes(16), 10, 16), released[0]);
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testMixedReads() throws IOException {
+        final byte[] source = bytes(40);
+        final TestBufferAllocator allocator = new TestBufferAllocator(1);
+        final ByteArrayOutputStream read = new ByteArrayOutputStream();
+        final List<Buffer> views = new ArrayList<>();
+        try (final FileInputInputStream in = new FileInputInputStream(new CountingFileInput(allocator, TestFileInput.chunks(source, 10)))) {
+            assertTrue(in.nextFile());
+            read.write(in.read());
+
+            final Buffer head = in.readBuffer(3);
+            assertEquals(3, head.limit());
+            views.add(head);
+            assertEquals(6, in.available());
+
+            final byte[] bytes = new byte[4];
+            assertEquals(4, in.read(bytes, 0, 4));
+            read.write(bytes, 0, 4);
+
+            final Buffer rest = in.pollBuffer();  // The rest of the first Buffer, as a view.
+            assertEquals(2, rest.limit());
+            views.add(rest);
+
+            final Buffer whole = in.pollBuffer();  // The second Buffer as is.
+            assertEquals(10, whole.limit());
+            views.add(whole);
+
+            read.write(in.read());
+            final Buffer tail = in.readBuffer(100);  // Never spans over Buffers.
+            assertEquals(9, tail.limit());
+            views.add(tail);
+
+            assertEquals(10L, in.transferTo(read));
+            assertNull(in.readBuffer(1));
+            assertEquals(-1, in.read());
+            assertFalse(in.nextFile());
+        }
+        assertEquals(3, allocator.getUnreleased());  // The views still refer to three Buffers after the stream moved on.
+
+        final ByteArrayOutputStream all = new ByteArrayOutputStream();
+        final byte[] bytes = read.toByteArray();
+        all.write(bytes, 0, 1);
+        all.write(TestBufferAllocator.toBytesAndRelease(views.get(0)), 0, 3);
+        all.write(bytes, 1, 4);
+        all.write(TestBufferAllocator.toBytesAndRelease(views.get(1)), 0, 2);
+        all.write(TestBufferAllocator.toBytesAndRelease(views.get(2)), 0, 10);
+        all.write(bytes, 5, 1);
+        all.write(TestBufferAllocator.toBytesAndRelease(views.get(3)), 0, 9);
+        all.write(bytes, 6, 10);
+        assertArrayEquals(source, all.toByteArray());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testTransferToFileOutput() {
+        final byte[] source = bytes(25);
+        final TestBufferAllocator allocator = new TestBufferAllocator(1);
+        final CollectingFileOutput out = new CollectingFileOutput();
+        try (final FileInputInputStream in = new FileInputInputStream(new CountingFileInput(allocator, TestFileInput.chunks(source, 10)))) {
+            assertTrue(in.nextFile());
+            assertEquals(2L, in.skip(2L));
+            assertEquals(23L, in.transferTo(out));
+        }
+        assertArrayEquals(Arrays.copyOfRange(source, 2, 25), out.written.toByteArray());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testInvalidLength() {
+        try (final FileInputInputStream in = new FileInputInputStream(new TestFileInput(new byte[][] { bytes(1) }))) {
+            assertThrows(IllegalArgumentException.class, () -> in.readBuffer(0));
+        }
+    }
+
+    // Serves the chunks of one file in Buffers from the allocator so that their releases are counted.
+    private static class CountingFileInput extends TestFileInput {
+        CountingFileInput(final TestBufferAllocator allocator, final byte[][] chunks) {
+            super(chunks);
+            this.allocator = allocator;
+        }
+
+        @Override
+        public Buffer poll() {
+            final Buffer wrapped = super.poll();
+            if (wrapped == null) {
+                return null;
+            }
+            final byte[] bytes = TestBufferAllocator.toBytesAndRelease(wrapped);
+            final Buffer buffer = this.allocator.allocate(bytes.length);
+            buffer.setBytes(0, bytes, 0, bytes.length);
+            buffer.limit(bytes.length);
+            return buffer;
+        }
+
+        private final TestBufferAllocator allocator;
+    }
+
+    private static class CollectingFileOutput implements FileOutput {
+        @Override
+        public void nextFile() {
+        }
+
+        @Override
+        public void add(final Buffer buffer) {
+            final byte[] bytes = TestBufferAllocator.toBytesAndRelease(buffer);
+            this.written.write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    }
+
+    private static byte[] bytes(final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7 + 1);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestFileInputTee {
+    @Test
+    public void testReplayedWithSpill(@TempDir final Path directory) {
+        final byte[] first = bytes(1000, 1);
+        final byte[] second = bytes(300, 2);
+        final TestFileInput source = new TestFileInput(TestFileInput.chunks(first, 64), TestFileInput.chunks(second, 64));
+        final TestBufferAllocator allocator = new TestBufferAllocator(16);
+        try (final FileInputTee tee = new FileInputTee(source, allocator, 200L, directory)) {
+            for (int i = 0; i < 3; i++) {
+                try (final FileInput reader = tee.newReader()) {
+                    assertTrue(reader.nextFile());
+                    assertEquals("file0", reader.hintOfCurrentInputFileNameForLogging().get());
+                    assertArrayEquals(first, TestFileInput.readFile(reader));
+                    assertTrue(reader.nextFile());
+                    assertArrayEquals(second, TestFileInput.readFile(reader));
+                    assertFalse(reader.nextFile());
+                }
+            }
+            assertTrue(tee.getMemoryBytes() <= 200L);
+            assertEquals(1300L - tee.getMemoryBytes(), tee.getSpilledBytes());
+        }
+        assertTrue(source.isClosed());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testNextFileRecordsTheRestForOtherReaders(@TempDir final Path directory) {
+        final byte[] first = bytes(100, 1);
+        final byte[] second = bytes(10, 2);
+        final TestFileInput source = new TestFileInput(TestFileInput.chunks(first, 8), TestFileInput.chunks(second, 8));
+        try (final FileInputTee tee = new FileInputTee(source, new TestBufferAllocator(8), 1024L, directory)) {
+            final FileInput skipping = tee.newReader();
+            assertTrue(skipping.nextFile());
+            assertTrue(skipping.nextFile());  // Skips the first file without reading it.
+            assertArrayEquals(second, TestFileInput.readFile(skipping));
+
+            final FileInput reader = tee.newReader();
+            assertTrue(reader.nextFile());
+            assertArrayEquals(first, TestFileInput.readFile(reader));
+        }
+    }
+
+    @Test
+    public void testRecordedChunksServedWhileSourceBlocks(@TempDir final Path directory) throws Exception {
+        final CountDownLatch polling = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestFileInput source = new TestFileInput(new byte[][] { { 1 }, { 2 }, { 3 } }) {
+            @Override
+            public Buffer poll() {
+                if (this.polled++ == 2) {  // Blocks before the third chunk.
+                    polling.countDown();
+                    try {
+                        release.await();
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.poll();
+            }
+
+            private int polled = 0;
+        };
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (final FileInputTee tee = new FileInputTee(source, new TestBufferAllocator(8), 1024L, directory)) {
+            final FileInput ahead = tee.newReader();
+            assertTrue(ahead.nextFile());
+            assertEquals(1, TestBufferAllocator.toBytesAndRelease(ahead.poll())[0]);
+            assertEquals(2, TestBufferAllocator.toBytesAndRelease(ahead.poll())[0]);
+            final Future<byte[]> third = executor.submit(() -> TestBufferAllocator.toBytesAndRelease(ahead.poll()));
+            assertTrue(polling.await(10, TimeUnit.SECONDS));
+
+            // Another reader reads what is recorded while the source is blocked for the reader ahead.
+            final FileInput behind = tee.newReader();
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                assertTrue(behind.nextFile());
+                assertEquals(1, TestBufferAllocator.toBytesAndRelease(behind.poll())[0]);
+                assertEquals(2, TestBufferAllocator.toBytesAndRelease(behind.poll())[0]);
+            });
+
+            release.countDown();
+            assertEquals(3, third.get(10, TimeUnit.SECONDS)[0]);
+            assertEquals(3, TestBufferAllocator.toBytesAndRelease(behind.poll())[0]);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentReaders(@TempDir final Path directory) throws Exception {
+        final byte[] first = bytes(20000, 1);
+        final byte[] second = bytes(5000, 2);
+        final TestFileInput source = new TestFileInput(TestFileInput.chunks(first, 100), TestFileInput.chunks(second, 100));
+        final TestBufferAllocator allocator = new TestBufferAllocator(16);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (final FileInputTee tee = new FileInputTee(source, allocator, 1000L, directory)) {
+            final List<Future<List<byte[]>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    final List<byte[]> files = new ArrayList<>();
+                    try (final FileInput reader = tee.newReader()) {
+                        while (reader.nextFile()) {
+                            files.add(TestFileInput.readFile(reader));
+                        }
+                    }
+                    return files;
+                }));
+            }
+            for (final Future<List<byte[]>> result : results) {
+                final List<byte[]> files = result.get(30, TimeUnit.SECONDS);
+                assertEquals(2, files.size());
+                assertArrayEquals(first, files.get(0));
+                assertArrayEquals(second, files.get(1));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testReaderAfterClose(@TempDir final Path directory) {
+        final TestFileInput source = new TestFileInput(TestFileInput.chunks(bytes(100, 1), 10));
+        final FileInputTee tee = new FileInputTee(source, new TestBufferAllocator(8), 0L, directory);
+        final FileInput reader = tee.newReader();
+        assertTrue(reader.nextFile());
+        TestBufferAllocator.toBytesAndRelease(reader.poll());
+        tee.close();
+        assertThrows(IllegalStateException.class, reader::poll);
+        assertThrows(IllegalStateException.class, tee::newReader);
+        assertTrue(source.isClosed());
+    }
+
+    private static byte[] bytes(final int length, final int seed) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.embulk.spi.Buffer;
+import org.junit.jupiter.api.Test;
+
+public class TestFillPolicy {
+    @Test
+    public void testSingleRead() {
+        final List<Integer> sizes = pollSizes(InputStreamFileInput.FillPolicy.singleRead(), 40);
+        assertTrue(sizes.stream().allMatch(size -> size <= 3));
+        assertEquals(40, sizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void testToCapacity() {
+        assertEquals(Arrays.asList(16, 16, 8), pollSizes(InputStreamFileInput.FillPolicy.toCapacity(), 40));
+    }
+
+    @Test
+    public void testAtLeast() {
+        final List<Integer> sizes = pollSizes(InputStreamFileInput.FillPolicy.atLeast(8), 40);
+        for (final int size : sizes.subList(0, sizes.size() - 1)) {
+            assertTrue(size >= 8 && size <= 16, "size: " + size);
+        }
+        assertEquals(40, sizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void testTimeLimitStopsFilling() {
+        // No time is left after the first read, so that each Buffer gets one read as singleRead().
+        final InputStreamFileInput.FillPolicy policy = InputStreamFileInput.FillPolicy.toCapacity().withTimeLimit(0L, TimeUnit.NANOSECONDS);
+        assertTrue(pollSizes(policy, 40).stream().allMatch(size -> size <= 3));
+        assertEquals(0L, (long) policy.getTimeLimitNanos().get());
+    }
+
+    @Test
+    public void testFillStopsAtZeroLengthRead() throws IOException {
+        final InputStream zeroOnce = new InputStream() {
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) {
+                if (this.calls++ == 0) {
+                    b[off] = 1;
+                    return 1;
+                }
+                return 0;
+            }
+
+            private int calls = 0;
+        };
+        final Buffer buffer = new TestBufferAllocator(16).allocate();
+        assertEquals(1, InputStreamFileInput.FillPolicy.toCapacity().fill(zeroOnce, buffer));
+        buffer.release();
+    }
+
+    @Test
+    public void testEndOfStream() throws IOException {
+        final Buffer buffer = new TestBufferAllocator(16).allocate();
+        assertEquals(-1, InputStreamFileInput.FillPolicy.toCapacity().fill(new ByteArrayInputStream(new byte[0]), buffer));
+        assertEquals(4, InputStreamFileInput.FillPolicy.toCapacity().fill(new ByteArrayInputStream(new byte[4]), buffer, 4));
+        buffer.release();
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> InputStreamFileInput.FillPolicy.atLeast(0));
+        assertThrows(IllegalArgumentException.class, () -> InputStreamFileInput.FillPolicy.singleRead().withTimeLimit(-1L, TimeUnit.SECONDS));
+        assertFalse(InputStreamFileInput.FillPolicy.atLeast(8).getTimeLimitNanos().isPresent());
+    }
+
+    // Polls all the Buffers of a source which returns at most 3 bytes for each read, with Buffers of 16 bytes.
+    private static List<Integer> pollSizes(final InputStreamFileInput.FillPolicy policy, final int length) {
+        final byte[] source = new byte[length];
+        for (int i = 0; i < length; i++) {
+            source[i] = (byte) i;
+        }
+        final TestBufferAllocator allocator = new TestBufferAllocator(16);
+        final List<Integer> sizes = new ArrayList<>();
+        final ByteArrayOutputStream read = new ByteArrayOutputStream();
+        try (final InputStreamFileInput input = new InputStreamFileInput(
+                allocator, new InputStreamFileInput.IteratorProvider(Arrays.asList(new ShortReadInputStream(source, 3))), policy)) {
+            assertTrue(input.nextFile());
+            while (true) {
+                final Buffer buffer = input.poll();
+                if (buffer == null) {
+                    break;
+                }
+                final byte[] bytes = TestBufferAllocator.toBytesAndRelease(buffer);
+                sizes.add(bytes.length);
+                read.write(bytes, 0, bytes.length);
+            }
+        }
+        assertArrayEquals(source, read.toByteArray());
+        assertEquals(0, allocator.getUnreleased());
+        return sizes;
+    }
+
+    private static class ShortReadInputStream extends ByteArrayInputStream {
+        ShortReadInputStream(final byte[] bytes, final int maxRead) {
+            super(bytes);
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            return super.read(b, off, Math.min(len, this.maxRead));
+        }
+
+        private final int maxRead;
+    }
+}
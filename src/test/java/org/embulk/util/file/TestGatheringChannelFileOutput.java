@@ -0,0 +1,211 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.embulk.spi.Buffer;
+import org.junit.jupiter.api.Test;
+
+public class TestGatheringChannelFileOutput {
+    @Test
+    public void testQueuedUpToMaxBuffers() {
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final CollectingProvider provider = new CollectingProvider(Integer.MAX_VALUE);
+        try (final GatheringChannelFileOutput output = new GatheringChannelFileOutput(provider, 3, 1024L)) {
+            output.nextFile();
+            for (int i = 0; i < 7; i++) {
+                output.add(buffer(allocator, bytes(5, i)));
+            }
+            assertEquals(Arrays.asList(15L, 15L), provider.writes);  // The 7th Buffer is still queued.
+            assertEquals(1, allocator.getUnreleased());
+            output.finish();
+        }
+        assertEquals(Arrays.asList(15L, 15L, 5L), provider.writes);
+        assertEquals(35, provider.files.get(0).size());
+        assertEquals(1, provider.finished);
+        assertTrue(provider.closed);
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testQueuedUpToMaxBytes() {
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final CollectingProvider provider = new CollectingProvider(Integer.MAX_VALUE);
+        try (final GatheringChannelFileOutput output = new GatheringChannelFileOutput(provider, 100, 10L)) {
+            output.nextFile();
+            output.add(buffer(allocator, bytes(4, 1)));
+            output.add(buffer(allocator, bytes(0, 2)));  // An empty Buffer is released without being queued.
+            output.add(buffer(allocator, bytes(4, 3)));
+            assertTrue(provider.writes.isEmpty());
+            output.add(buffer(allocator, bytes(4, 4)));
+            assertEquals(Arrays.asList(12L), provider.writes);
+            output.add(buffer(allocator, bytes(1, 5)));
+            output.nextFile();  // Queued Buffers are written into the previous file.
+            output.add(buffer(allocator, bytes(2, 6)));
+            output.finish();
+        }
+        assertEquals(Arrays.asList(12L, 1L, 2L), provider.writes);
+        assertEquals(13, provider.files.get(0).size());
+        assertArrayEquals(bytes(2, 6), provider.files.get(1).toByteArray());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testPartialWritesAreContinued() {
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final CollectingProvider provider = new CollectingProvider(3);
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (final GatheringChannelFileOutput output = new GatheringChannelFileOutput(provider, 4, 1024L)) {
+            output.nextFile();
+            for (int i = 0; i < 4; i++) {
+                final byte[] bytes = bytes(5 + i, i);
+                expected.write(bytes, 0, bytes.length);
+                output.add(buffer(allocator, bytes));
+            }
+            output.finish();
+        }
+        assertArrayEquals(expected.toByteArray(), provider.files.get(0).toByteArray());
+        assertEquals(Arrays.asList(3L, 3L, 3L, 3L, 3L, 3L, 3L, 3L, 2L), provider.writes);
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testQueuedBuffersAreReleased() {
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final CollectingProvider provider = new CollectingProvider(Integer.MAX_VALUE);
+        try (final GatheringChannelFileOutput output = new GatheringChannelFileOutput(provider, 4, 1024L)) {
+            assertThrows(IllegalStateException.class, () -> output.add(buffer(allocator, bytes(1, 0))));
+            output.nextFile();
+            output.add(buffer(allocator, bytes(3, 0)));
+        }
+        // Closed without finish(), the queued Buffer is released without being written.
+        assertTrue(provider.writes.isEmpty());
+        assertEquals(0, allocator.getUnreleased());
+
+        final CollectingProvider failing = new CollectingProvider(Integer.MAX_VALUE);
+        failing.failWrites = true;
+        try (final GatheringChannelFileOutput output = new GatheringChannelFileOutput(failing, 2, 1024L)) {
+            output.nextFile();
+            output.add(buffer(allocator, bytes(3, 0)));
+            assertThrows(UncheckedIOException.class, () -> output.add(buffer(allocator, bytes(3, 1))));
+            assertEquals(0, allocator.getUnreleased());
+        }
+        assertTrue(failing.closed);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new GatheringChannelFileOutput(new CollectingProvider(1), 0, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new GatheringChannelFileOutput(new CollectingProvider(1), 1, 0L));
+    }
+
+    // Collects each file, and records the bytes written by each gathering write, which writes at most "maxWrite" bytes.
+    private static class CollectingProvider implements GatheringChannelFileOutput.Provider {
+        CollectingProvider(final int maxWrite) {
+            this.maxWrite = maxWrite;
+            this.files = new ArrayList<>();
+            this.writes = new ArrayList<>();
+        }
+
+        @Override
+        public GatheringByteChannel openNext() {
+            final ByteArrayOutputStream file = new ByteArrayOutputStream();
+            this.files.add(file);
+            return new GatheringByteChannel() {
+                @Override
+                public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+                    if (CollectingProvider.this.failWrites) {
+                        throw new IOException("failed to write");
+                    }
+                    long written = 0L;
+                    for (int i = offset; i < offset + length && written < CollectingProvider.this.maxWrite; i++) {
+                        while (srcs[i].hasRemaining() && written < CollectingProvider.this.maxWrite) {
+                            file.write(srcs[i].get());
+                            written++;
+                        }
+                    }
+                    CollectingProvider.this.writes.add(written);
+                    return written;
+                }
+
+                @Override
+                public long write(final ByteBuffer[] srcs) throws IOException {
+                    return this.write(srcs, 0, srcs.length);
+                }
+
+                @Override
+                public int write(final ByteBuffer src) throws IOException {
+                    return (int) this.write(new ByteBuffer[] { src });
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void finish() {
+            this.finished++;
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+
+        private boolean failWrites;
+        private int finished;
+        private boolean closed;
+
+        private final int maxWrite;
+        private final List<ByteArrayOutputStream> files;
+        private final List<Long> writes;
+    }
+
+    private static Buffer buffer(final TestBufferAllocator allocator, final byte[] bytes) {
+        final Buffer buffer = allocator.allocate(bytes.length);
+        buffer.setBytes(0, bytes, 0, bytes.length);
+        buffer.limit(bytes.length);
+        return buffer;
+    }
+
+    private static byte[] bytes(final int length, final int seed) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 17 + seed);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+import org.embulk.spi.FileOutput;
+import org.junit.jupiter.api.Test;
+
+// Tests the Instrumented* decorators with FileIoStatistics.
+public class TestInstrumentedFileIo {
+    @Test
+    public void testFileInput() {
+        final FileIoStatistics statistics = new FileIoStatistics();
+        final FileInput input = InstrumentedFileInput.wrap(
+                new TestFileInput(new byte[][] { new byte[10], new byte[5] }, new byte[0][], new byte[][] { new byte[3] }), statistics);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(input.nextFile());
+            TestFileInput.readFile(input);
+        }
+        assertFalse(input.nextFile());
+        input.close();
+
+        assertEquals(3L, statistics.getOpenedFiles());
+        assertEquals(3L, statistics.getBuffers());
+        assertEquals(18L, statistics.getBytes());
+        assertEquals(3L, statistics.getCompletedFiles());
+        assertEquals(18L, statistics.getCompletedFileBytes());
+        assertEquals(3L, statistics.getFillHistogram()[9]);  // The wrapped Buffers are full.
+        assertTrue(statistics.getMaxTransferNanos() <= statistics.getTransferNanos());
+    }
+
+    @Test
+    public void testFileOutput() {
+        final FileIoStatistics statistics = new FileIoStatistics();
+        final TestBufferAllocator allocator = new TestBufferAllocator(10);
+        final List<Integer> added = new ArrayList<>();
+        final FileOutput output = InstrumentedFileOutput.wrap(new FileOutput() {
+                @Override
+                public void nextFile() {
+                }
+
+                @Override
+                public void add(final Buffer buffer) {
+                    added.add(buffer.limit());
+                    buffer.release();  // Released in add() before the decorator measures it.
+                }
+
+                @Override
+                public void finish() {
+                }
+
+                @Override
+                public void close() {
+                }
+            }, statistics);
+        output.nextFile();
+        output.add(filled(allocator, 2));
+        output.add(filled(allocator, 10));
+        output.nextFile();  // Completes the first file.
+        assertEquals(1L, statistics.getCompletedFiles());
+        assertEquals(12L, statistics.getCompletedFileBytes());
+        output.add(filled(allocator, 5));
+        output.finish();
+        output.finish();  // A file is completed only once.
+        output.close();
+
+        assertEquals(Arrays.asList(2, 10, 5), added);
+        assertEquals(2L, statistics.getOpenedFiles());
+        assertEquals(3L, statistics.getBuffers());
+        assertEquals(2L, statistics.getCompletedFiles());
+        assertEquals(17L, statistics.getCompletedFileBytes());
+        assertArrayEquals(new long[] { 0, 0, 1, 0, 0, 1, 0, 0, 0, 1 }, statistics.getFillHistogram());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testInputStreamProvider() {
+        final FileIoStatistics statistics = new FileIoStatistics();
+        final InputStreamFileInput.Provider provider = InstrumentedInputStreamProvider.wrap(
+                new InputStreamFileInput.IteratorProvider(Arrays.<InputStream>asList(new ByteArrayInputStream(new byte[20]), new ByteArrayInputStream(new byte[7]))),
+                statistics);
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        try (final InputStreamFileInput input = new InputStreamFileInput(allocator, provider)) {
+            assertTrue(input.nextFile());
+            assertEquals(20, TestFileInput.readFile(input).length);
+            assertTrue(input.nextFile());
+            assertTrue(input.poll() != null);  // The second file is closed before its end.
+        }
+        assertEquals(2L, statistics.getOpenedFiles());
+        assertEquals(27L, statistics.getBytes());
+        assertEquals(2L, statistics.getCompletedFiles());
+        assertEquals(27L, statistics.getCompletedFileBytes());
+    }
+
+    @Test
+    public void testOutputStreamProvider() {
+        final FileIoStatistics statistics = new FileIoStatistics();
+        final List<ByteArrayOutputStream> files = new ArrayList<>();
+        final OutputStreamFileOutput.Provider provider = InstrumentedOutputStreamProvider.wrap(new OutputStreamFileOutput.Provider() {
+                @Override
+                public OutputStream openNext() {
+                    final ByteArrayOutputStream file = new ByteArrayOutputStream();
+                    files.add(file);
+                    return file;
+                }
+
+                @Override
+                public void finish() {
+                }
+
+                @Override
+                public void close() {
+                }
+            }, statistics);
+        final TestBufferAllocator allocator = new TestBufferAllocator(10);
+        try (final OutputStreamFileOutput output = new OutputStreamFileOutput(provider)) {
+            output.nextFile();
+            output.add(filled(allocator, 4));
+            output.add(filled(allocator, 6));
+            output.nextFile();
+            output.add(filled(allocator, 1));
+            output.finish();
+        }
+        assertEquals(2, files.size());
+        assertEquals(10, files.get(0).size());
+        assertEquals(2L, statistics.getOpenedFiles());
+        assertEquals(3L, statistics.getBuffers());
+        assertEquals(11L, statistics.getBytes());
+        assertEquals(2L, statistics.getCompletedFiles());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testNoopIsNotWrapped() {
+        final TestFileInput input = new TestFileInput();
+        assertSame(input, InstrumentedFileInput.wrap(input, FileIoMetrics.NOOP));
+        final InputStreamFileInput.Provider provider = new InputStreamFileInput.IteratorProvider(Arrays.<InputStream>asList());
+        assertSame(provider, InstrumentedInputStreamProvider.wrap(provider, FileIoMetrics.NOOP));
+    }
+
+    @Test
+    public void testStatisticsRegistered() throws JMException {
+        final FileIoStatistics statistics = new FileIoStatistics();
+        statistics.fileOpened(5L);
+        statistics.bufferTransferred(50, 100, 7L);
+        statistics.bufferTransferred(0, 0, 3L);  // Not counted in the histogram without capacity.
+        statistics.fileCompleted(2000L, 1_000_000_000L);
+        assertEquals(2000.0, statistics.getBytesPerSecondPerFile());
+        assertEquals(7L, statistics.getMaxTransferNanos());
+        assertEquals(1L, Arrays.stream(statistics.getFillHistogram()).sum());
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName("org.embulk.util.file:type=FileIoStatistics,name=" + ObjectName.quote("test"));
+        statistics.register("test");
+        try {
+            assertThrows(IllegalStateException.class, () -> statistics.register("test"));
+            assertThrows(IllegalStateException.class, () -> new FileIoStatistics().register("test"));
+            assertEquals(2L, server.getAttribute(name, "Buffers"));
+            assertEquals(50L, server.getAttribute(name, "Bytes"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, statistics.getBuffers());
+            assertEquals(0.0, statistics.getBytesPerSecondPerFile());
+        } finally {
+            statistics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+        statistics.unregister();
+    }
+
+    private static Buffer filled(final TestBufferAllocator allocator, final int length) {
+        final Buffer buffer = allocator.allocate();
+        buffer.limit(length);
+        return buffer;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestMultipartUploadFileOutput {
+    @Test
+    public void testUploadInParts(@TempDir final Path directory) throws IOException {
+        final byte[] first = bytes(95);
+        final RecordingProvider provider = new RecordingProvider(directory, -1);
+        try (final MultipartUploadFileOutput output = new MultipartUploadFileOutput(provider, 10, 3, 2)) {
+            output.nextFile();
+            addInChunks(output, first, 7);
+            output.nextFile();
+            output.finish();
+        }
+        assertArrayEquals(first, Files.readAllBytes(directory.resolve("file0")));
+        assertEquals(0L, Files.size(directory.resolve("file1")));
+        assertEquals(2, provider.completed.get());
+        assertEquals(0, provider.aborted.get());
+    }
+
+    @Test
+    public void testFailedMiddlePartIsNeverCompleted(@TempDir final Path directory) throws IOException {
+        final RecordingProvider provider = new RecordingProvider(directory, 2);
+        final MultipartUploadFileOutput output = new MultipartUploadFileOutput(provider, 10, 1, 1);
+        output.nextFile();
+        final UncheckedIOException failure = assertThrows(UncheckedIOException.class, () -> {
+            addInChunks(output, bytes(40), 10);
+            output.finish();
+        });
+
+        // A retry must not complete the upload with the failed part missing.
+        assertSame(failure, assertThrows(UncheckedIOException.class, output::finish));
+        assertSame(failure, assertThrows(UncheckedIOException.class, output::nextFile));
+        output.close();
+        assertEquals(0, provider.completed.get());
+        assertEquals(1, provider.aborted.get());
+        try (final Stream<Path> files = Files.list(directory)) {
+            assertEquals(0L, files.count());
+        }
+    }
+
+    private static void addInChunks(final MultipartUploadFileOutput output, final byte[] bytes, final int size) {
+        for (final byte[] chunk : TestFileInput.chunks(bytes, size)) {
+            output.add(TestBufferAllocator.wrap(chunk));
+        }
+    }
+
+    private static byte[] bytes(final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7 + 1);
+        }
+        return bytes;
+    }
+
+    // Opens FileChannelPartUploaders on "file0", "file1", and so on, which fail in uploading the part "failingPart".
+    private static class RecordingProvider implements MultipartUploadFileOutput.Provider {
+        RecordingProvider(final Path directory, final int failingPart) {
+            this.opened = 0;
+            this.directory = directory;
+            this.failingPart = failingPart;
+            this.completed = new AtomicInteger(0);
+            this.aborted = new AtomicInteger(0);
+        }
+
+        @Override
+        public MultipartUploadFileOutput.PartUploader openNext() throws IOException {
+            final FileChannelPartUploader uploader = new FileChannelPartUploader(this.directory.resolve("file" + this.opened++));
+            return new MultipartUploadFileOutput.PartUploader() {
+                @Override
+                public void uploadPart(final int partNumber, final long offset, final ByteBuffer data) throws IOException {
+                    if (partNumber == RecordingProvider.this.failingPart) {
+                        throw new IOException("Failed intentionally.");
+                    }
+                    uploader.uploadPart(partNumber, offset, data);
+                }
+
+                @Override
+                public void complete(final int partCount, final long totalBytes) throws IOException {
+                    uploader.complete(partCount, totalBytes);
+                    RecordingProvider.this.completed.incrementAndGet();
+                }
+
+                @Override
+                public void abort() throws IOException {
+                    RecordingProvider.this.aborted.incrementAndGet();
+                    uploader.abort();
+                }
+            };
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private int opened;
+
+        private final Path directory;
+        private final int failingPart;
+        private final AtomicInteger completed;
+        private final AtomicInteger aborted;
+    }
+}
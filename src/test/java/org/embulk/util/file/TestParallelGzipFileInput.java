@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileInput;
+import org.junit.jupiter.api.Test;
+
+public class TestParallelGzipFileInput {
+    @Test
+    public void testBgzf() {
+        final byte[] source = TestParallelGzipFileOutput.source(300000);
+        final TestBufferAllocator allocator = new TestBufferAllocator(8192);
+        final ParallelGzipFileInput input = new ParallelGzipFileInput(files(bgzf(source, 10000)), allocator, 3, 4);
+        try {
+            assertTrue(input.nextFile());
+            assertArrayEquals(source, readFile(input));
+            assertFalse(input.nextFile());
+        } finally {
+            input.close();
+        }
+        assertEquals(0, input.getPooledInflaterCount());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testPlainGzipAndExtraFieldWithoutBc() throws IOException {
+        final byte[] source = TestParallelGzipFileOutput.source(50000);
+        final TestBufferAllocator allocator = new TestBufferAllocator(8192);
+        final ParallelGzipFileInput input = new ParallelGzipFileInput(files(gzip(source), gzipWithExtra(source)), allocator, 2, 2);
+        try {
+            assertTrue(input.nextFile());
+            assertArrayEquals(source, readFile(input));
+            assertTrue(input.nextFile());
+            assertArrayEquals(source, readFile(input));
+            assertFalse(input.nextFile());
+        } finally {
+            input.close();
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testNotGzipWithExtraFlag() {
+        // Looks like a BGZF header except for ID1 and ID2.
+        final byte[] bytes = bgzf(TestParallelGzipFileOutput.source(1000), 1000);
+        bytes[0] = 0;
+        bytes[1] = 0;
+        final TestBufferAllocator allocator = new TestBufferAllocator(8192);
+        final ParallelGzipFileInput input = new ParallelGzipFileInput(files(bytes), allocator, 2, 2);
+        try {
+            assertTrue(input.nextFile());
+            assertThrows(UncheckedIOException.class, input::poll);
+        } finally {
+            input.close();
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testCorruptBlockIsThrownUntilClose() {
+        final byte[] source = TestParallelGzipFileOutput.source(100000);
+        final byte[] bytes = bgzf(source, 10000);
+        bytes[bytes.length / 2] ^= 0x55;  // Breaks a block in the middle.
+        final TestBufferAllocator allocator = new TestBufferAllocator(8192);
+        final ParallelGzipFileInput input = new ParallelGzipFileInput(files(bytes), allocator, 2, 4);
+        try {
+            assertTrue(input.nextFile());
+            assertThrows(UncheckedIOException.class, () -> readFile(input));
+
+            // The blocks after the broken block are never returned.
+            assertThrows(UncheckedIOException.class, input::poll);
+            assertThrows(UncheckedIOException.class, input::nextFile);
+        } finally {
+            input.close();
+        }
+        assertEquals(0, input.getPooledInflaterCount());
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    private static FileInput files(final byte[]... files) {
+        final List<List<Buffer>> buffers = new ArrayList<>();
+        for (final byte[] file : files) {
+            final List<Buffer> chunks = new ArrayList<>();
+            for (int i = 0; i < file.length; i += 7000) {
+                chunks.add(TestBufferAllocator.wrap(Arrays.copyOfRange(file, i, Math.min(file.length, i + 7000))));
+            }
+            buffers.add(Collections.unmodifiableList(chunks));
+        }
+        return new ListFileInput(buffers);
+    }
+
+    private static byte[] readFile(final FileInput input) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (true) {
+            final Buffer buffer = input.poll();
+            if (buffer == null) {
+                return out.toByteArray();
+            }
+            final byte[] bytes = TestBufferAllocator.toBytesAndRelease(buffer);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static byte[] gzip(final byte[] source) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(source);
+        }
+        return out.toByteArray();
+    }
+
+    // A gzip member with FEXTRA of a subfield other than "BC", which is not BGZF.
+    private static byte[] gzipWithExtra(final byte[] source) throws IOException {
+        final byte[] plain = gzip(source);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(plain, 0, 3);
+        out.write(0x04);  // FLG.FEXTRA
+        out.write(plain, 4, 6);
+        out.write(new byte[] { 6, 0, 'A', 'B', 2, 0, 9, 9 });  // XLEN = 6, SI1 = 'A', SI2 = 'B', LEN = 2
+        out.write(plain, 10, plain.length - 10);
+        return out.toByteArray();
+    }
+
+    // Compresses into BGZF blocks of up to "blockSize" uncompressed bytes, followed by the end-of-file marker.
+    static byte[] bgzf(final byte[] source, final int blockSize) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < source.length; i += blockSize) {
+            writeBgzfBlock(out, Arrays.copyOfRange(source, i, Math.min(source.length, i + blockSize)));
+        }
+        writeBgzfBlock(out, new byte[0]);
+        return out.toByteArray();
+    }
+
+    private static void writeBgzfBlock(final ByteArrayOutputStream out, final byte[] block) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final byte[] compressed = new byte[block.length + 1024];
+        final int compressedLength;
+        try {
+            deflater.setInput(block);
+            deflater.finish();
+            compressedLength = deflater.deflate(compressed);
+        } finally {
+            deflater.end();
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(block);
+        final int totalSize = 18 + compressedLength + 8;
+        out.write(new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0 }, 0, 16);
+        writeLittleEndian(out, totalSize - 1, 2);
+        out.write(compressed, 0, compressedLength);
+        writeLittleEndian(out, crc.getValue(), 4);
+        writeLittleEndian(out, block.length, 4);
+    }
+
+    private static void writeLittleEndian(final ByteArrayOutputStream out, final long value, final int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+import org.junit.jupiter.api.Test;
+
+public class TestParallelGzipFileOutput {
+    @Test
+    public void testRoundTrip() throws IOException {
+        final CollectingFileOutput collected = new CollectingFileOutput();
+        final byte[] first = source(100000);
+        final byte[] second = new byte[0];
+        final ParallelGzipFileOutput output = new ParallelGzipFileOutput(collected, 4096, 3, 4, Deflater.DEFAULT_COMPRESSION);
+        try {
+            output.nextFile();
+            addInChunks(output, first);
+            output.nextFile();
+            addInChunks(output, second);
+            output.finish();
+        } finally {
+            output.close();
+        }
+        assertEquals(2, collected.files.size());
+        assertArrayEquals(first, gunzip(collected.files.get(0).toByteArray()));
+        assertArrayEquals(second, gunzip(collected.files.get(1).toByteArray()));
+        assertEquals(0, output.getPooledDeflaterCount());
+    }
+
+    @Test
+    public void testDeflatersEndedWithSharedExecutor() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 3; i++) {
+                final CollectingFileOutput collected = new CollectingFileOutput();
+                final byte[] source = source(50000);
+                final ParallelGzipFileOutput output = new ParallelGzipFileOutput(collected, executor, 1024, 8, 6);
+                output.nextFile();
+                addInChunks(output, source);
+                output.finish();
+                output.close();
+                assertEquals(0, output.getPooledDeflaterCount());
+                assertArrayEquals(source, gunzip(collected.files.get(0).toByteArray()));
+            }
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDelegateFailure() {
+        final FileOutput failing = new CollectingFileOutput() {
+            @Override
+            public void add(final Buffer buffer) {
+                if (++this.added > 1) {  // Fails on a compressed block after the gzip header.
+                    buffer.release();
+                    throw new IllegalStateException("Failed intentionally.");
+                }
+                super.add(buffer);
+            }
+
+            private int added = 0;
+        };
+        final ParallelGzipFileOutput output = new ParallelGzipFileOutput(failing, 1024, 2, 2, 6);
+        output.nextFile();
+        assertThrows(IllegalStateException.class, () -> {
+            addInChunks(output, source(50000));
+            output.finish();
+        });
+        output.close();
+        assertEquals(0, output.getPooledDeflaterCount());
+    }
+
+    @Test
+    public void testFailedBlockIsThrownAgain() {
+        final AtomicInteger submitted = new AtomicInteger(0);
+        final ExecutorService executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            protected <T> RunnableFuture<T> newTaskFor(final Callable<T> callable) {
+                if (submitted.incrementAndGet() == 2) {  // Fails in compressing the second block.
+                    return new FutureTask<>(() -> {
+                        throw new IllegalStateException("Failed intentionally.");
+                    });
+                }
+                return super.newTaskFor(callable);
+            }
+        };
+        try {
+            final CollectingFileOutput collected = new CollectingFileOutput();
+            final ParallelGzipFileOutput output = new ParallelGzipFileOutput(collected, executor, 1024, 8, 6);
+            output.nextFile();
+            final IllegalStateException failure = assertThrows(IllegalStateException.class, () -> {
+                addInChunks(output, source(5000));
+                output.finish();
+            });
+
+            // A retry must not finish the gzip member without the failed block.
+            assertSame(failure, assertThrows(IllegalStateException.class, output::finish));
+            assertSame(failure, assertThrows(IllegalStateException.class, output::nextFile));
+            output.close();
+            assertEquals(0, collected.finished);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static byte[] source(final int length) {
+        final Random random = new Random(length);
+        final byte[] source = new byte[length];
+        for (int i = 0; i < length; i++) {
+            source[i] = (byte) ('a' + random.nextInt(4));  // Compressible, but not too much.
+        }
+        return source;
+    }
+
+    private static void addInChunks(final FileOutput output, final byte[] bytes) {
+        for (int i = 0; i < bytes.length; i += 1000) {
+            final byte[] chunk = new byte[Math.min(1000, bytes.length - i)];
+            System.arraycopy(bytes, i, chunk, 0, chunk.length);
+            output.add(TestBufferAllocator.wrap(chunk));
+        }
+    }
+
+    private static byte[] gunzip(final byte[] compressed) throws IOException {
+        try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[4096];
+            while (true) {
+                final int n = in.read(chunk);
+                if (n < 0) {
+                    return out.toByteArray();
+                }
+                out.write(chunk, 0, n);
+            }
+        }
+    }
+
+    private static class CollectingFileOutput implements FileOutput {
+        CollectingFileOutput() {
+            this.files = new ArrayList<>();
+        }
+
+        @Override
+        public void nextFile() {
+            this.files.add(new ByteArrayOutputStream());
+        }
+
+        @Override
+        public void add(final Buffer buffer) {
+            final byte[] bytes = TestBufferAllocator.toBytesAndRelease(buffer);
+            this.files.get(this.files.size() - 1).write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void finish() {
+            this.finished++;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private int finished;
+
+        private final List<ByteArrayOutputStream> files;
+    }
+}
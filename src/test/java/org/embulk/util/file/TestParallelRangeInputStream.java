@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class TestParallelRangeInputStream {
+    @Test
+    public void testReadAllInOrder() throws IOException {
+        final byte[] source = source(1000);
+        try (final InputStream in = new ParallelRangeInputStream((offset, cause) -> from(source, offset), source.length, 64, 4)) {
+            assertArrayEquals(source, readAll(in));
+        }
+    }
+
+    @Test
+    public void testResumedInRange() throws IOException {
+        final byte[] source = source(100);
+        final AtomicInteger failures = new AtomicInteger(0);
+        final ResumableInputStream.Reopener reopener = (offset, cause) -> {
+            if (offset == 10 && failures.getAndIncrement() == 0) {
+                return new FailingInputStream(from(source, offset), 3);  // Fails once in the middle of the second range.
+            }
+            return from(source, offset);
+        };
+        try (final InputStream in = new ParallelRangeInputStream(reopener, new BackoffRetryPolicy(0L, 0L, 3), source.length, 10, 2)) {
+            assertArrayEquals(source, readAll(in));
+        }
+    }
+
+    @Test
+    public void testFirstOpenOfRangeIsRetried() throws IOException {
+        final byte[] source = source(100);
+        final AtomicInteger failures = new AtomicInteger(0);
+        final ResumableInputStream.Reopener reopener = (offset, cause) -> {
+            if (offset == 30 && cause == null && failures.getAndIncrement() == 0) {
+                throw new IOException("Failed intentionally.");  // Fails at the first open of the fourth range.
+            }
+            return from(source, offset);
+        };
+        try (final InputStream in = new ParallelRangeInputStream(reopener, new BackoffRetryPolicy(0L, 0L, 3), source.length, 10, 2)) {
+            assertArrayEquals(source, readAll(in));
+        }
+        assertEquals(1, failures.get());
+    }
+
+    @Test
+    public void testFailedRangeIsThrownAgain() throws IOException {
+        final byte[] source = source(100);
+        final ResumableInputStream.Reopener reopener = (offset, cause) -> {
+            if (offset >= 20 && offset < 30) {
+                return new FailingInputStream(from(source, offset), 0);
+            }
+            return from(source, offset);
+        };
+        try (final InputStream in = new ParallelRangeInputStream(reopener, new BackoffRetryPolicy(0L, 0L, 2), source.length, 10, 2)) {
+            final byte[] head = new byte[20];
+            int filled = 0;
+            while (filled < head.length) {
+                filled += in.read(head, filled, head.length - filled);
+            }
+            assertThrows(IOException.class, in::read);
+
+            // The bytes after the failed range are never served.
+            assertThrows(IOException.class, in::read);
+            assertThrows(IOException.class, () -> in.read(new byte[10], 0, 10));
+        }
+    }
+
+    private static byte[] source(final int length) {
+        final byte[] source = new byte[length];
+        for (int i = 0; i < length; i++) {
+            source[i] = (byte) (i * 7);
+        }
+        return source;
+    }
+
+    private static InputStream from(final byte[] source, final long offset) {
+        return new ByteArrayInputStream(source, (int) offset, source.length - (int) offset);
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] chunk = new byte[13];
+        while (true) {
+            final int n = in.read(chunk, 0, chunk.length);
+            if (n < 0) {
+                return out.toByteArray();
+            }
+            out.write(chunk, 0, n);
+        }
+    }
+
+    // Reads "failAfter" bytes, and then fails.
+    private static class FailingInputStream extends InputStream {
+        FailingInputStream(final InputStream in, final int failAfter) {
+            this.in = in;
+            this.remaining = failAfter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.remaining <= 0) {
+                throw new IOException("Failed intentionally.");
+            }
+            this.remaining--;
+            return this.in.read();
+        }
+
+        private int remaining;
+
+        private final InputStream in;
+    }
+}
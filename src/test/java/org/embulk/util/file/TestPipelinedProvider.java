@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class TestPipelinedProvider {
+    @Test
+    public void testProviderIsNotCalledAfterEnd() throws IOException {
+        final AtomicInteger calls = new AtomicInteger(0);
+        final Iterator<InputStream> streams = Arrays.<InputStream>asList(stream(1), stream(2)).iterator();
+        final InputStreamFileInput.Provider provider = new InputStreamFileInput.Provider() {
+            @Override
+            public InputStream openNext() {
+                if (calls.incrementAndGet() > 3) {
+                    throw new NoSuchElementException("Called after the end.");
+                }
+                return streams.hasNext() ? streams.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (final PipelinedProvider pipelined = new PipelinedProvider(provider, 4)) {
+            assertEquals(1, pipelined.openNextWithHints().getInputStream().read());
+            assertEquals(2, pipelined.openNextWithHints().getInputStream().read());
+            assertNull(pipelined.openNextWithHints().getInputStream());
+            assertNull(pipelined.openNextWithHints());
+        }
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testOpenersInOrderAndClosedAhead() throws IOException {
+        final List<ClosingInputStream> opened = new ArrayList<>();
+        final List<PipelinedProvider.HintedOpener> openers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final ClosingInputStream stream = new ClosingInputStream(i);
+            opened.add(stream);
+            openers.add(() -> {
+                stream.opened = true;
+                return new InputStreamFileInput.InputStreamWithHints(stream, "file" + stream.value);
+            });
+        }
+        try (final PipelinedProvider pipelined = new PipelinedProvider(openers, 2)) {
+            final InputStreamFileInput.InputStreamWithHints first = pipelined.openNextWithHints();
+            assertEquals(0, first.getInputStream().read());
+            assertEquals("file0", first.getHintOfCurrentInputFileNameForLogging().get());
+            assertEquals(1, pipelined.openNextWithHints().getInputStream().read());
+        }
+        // Files opened ahead and not returned are closed. Files not opened yet may have been cancelled.
+        for (final ClosingInputStream stream : opened.subList(2, 5)) {
+            assertTrue(!stream.opened || stream.closed);
+        }
+    }
+
+    @Test
+    public void testFailureIsNotSkippedByRetry() throws IOException {
+        final IOException failure = new IOException("Failed intentionally.");
+        final List<PipelinedProvider.HintedOpener> openers = Arrays.asList(
+                () -> new InputStreamFileInput.InputStreamWithHints(stream(0)),
+                () -> {
+                    throw failure;
+                },
+                () -> new InputStreamFileInput.InputStreamWithHints(stream(2)));
+        try (final PipelinedProvider pipelined = new PipelinedProvider(openers, 2)) {
+            assertEquals(0, pipelined.openNextWithHints().getInputStream().read());
+            assertSame(failure, assertThrows(IOException.class, pipelined::openNextWithHints));
+
+            // A retry must not return the file after the failed one.
+            assertSame(failure, assertThrows(IOException.class, pipelined::openNextWithHints));
+        }
+    }
+
+    private static InputStream stream(final int value) {
+        return new ByteArrayInputStream(new byte[] { (byte) value });
+    }
+
+    private static class ClosingInputStream extends ByteArrayInputStream {
+        ClosingInputStream(final int value) {
+            super(new byte[] { (byte) value });
+            this.value = value;
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+
+        private volatile boolean opened;
+        private volatile boolean closed;
+
+        private final int value;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.embulk.spi.Buffer;
+import org.junit.jupiter.api.Test;
+
+public class TestPoolingBufferAllocator {
+    @Test
+    @SuppressWarnings("deprecation")  // Calling Buffer#array().
+    public void testReuseAfterRelease() {
+        final TestBufferAllocator delegate = new TestBufferAllocator(16);
+        final PoolingBufferAllocator allocator = new PoolingBufferAllocator(delegate, 4);
+
+        final Buffer first = allocator.allocate();
+        first.limit(10);
+        final byte[] array = first.array();
+        first.release();
+        first.release();  // Released only once.
+
+        final Buffer second = allocator.allocate();
+        assertSame(array, second.array());
+        assertEquals(0, second.limit());
+        assertNotSame(array, allocator.allocate().array());  // The pooled Buffer is not handed out twice.
+        assertEquals(1L, allocator.getStatistics().getThreadLocalHits());
+        assertEquals(2L, allocator.getStatistics().getMisses());
+        assertEquals(1L, allocator.getStatistics().getRecycled());
+        assertEquals(2, delegate.getUnreleased());
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        final TestBufferAllocator delegate = new TestBufferAllocator(16);
+        final PoolingBufferAllocator allocator = new PoolingBufferAllocator(delegate, 2, 1);
+        final Buffer[] buffers = new Buffer[5];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = allocator.allocate();
+        }
+        for (final Buffer buffer : buffers) {
+            buffer.release();
+        }
+        // One in the thread-local cache, and two in the free list. The other two are released to the delegate.
+        assertEquals(3, delegate.getUnreleased());
+        assertEquals(2, allocator.getStatistics().getPooledInFreeList());
+        assertEquals(3L, allocator.getStatistics().getRecycled());
+        assertEquals(2L, allocator.getStatistics().getDiscarded());
+
+        for (int i = 0; i < 3; i++) {
+            allocator.allocate();
+        }
+        assertEquals(1L, allocator.getStatistics().getThreadLocalHits());
+        assertEquals(2L, allocator.getStatistics().getGlobalHits());
+        assertEquals(5L, allocator.getStatistics().getMisses());
+    }
+
+    @Test
+    public void testBuffersOfOtherThreadsAreShared() throws InterruptedException {
+        final TestBufferAllocator delegate = new TestBufferAllocator(16);
+        final PoolingBufferAllocator allocator = new PoolingBufferAllocator(delegate, 4, 0);
+        final Buffer buffer = allocator.allocate();
+        final Thread thread = new Thread(buffer::release);
+        thread.start();
+        thread.join();
+
+        allocator.allocate().release();
+        assertEquals(1L, allocator.getStatistics().getGlobalHits());
+        assertEquals(1, delegate.getUnreleased());
+    }
+
+    @Test
+    public void testLargerSizeFallsThrough() {
+        final TestBufferAllocator delegate = new TestBufferAllocator(16);
+        final PoolingBufferAllocator allocator = new PoolingBufferAllocator(delegate, 4);
+
+        // The pooled size is unknown before the first allocation, and the Buffer allocated to learn it is pooled.
+        final Buffer large = allocator.allocate(64);
+        assertEquals(64, large.capacity());
+        assertEquals(1L, allocator.getStatistics().getPassedThrough());
+        assertEquals(1L, allocator.getStatistics().getRecycled());
+
+        final Buffer small = allocator.allocate(8);
+        assertEquals(16, small.capacity());
+        assertEquals(1L, allocator.getStatistics().getThreadLocalHits());
+
+        large.release();  // Released to the delegate, not pooled.
+        small.release();
+        assertEquals(1, delegate.getUnreleased());
+        assertEquals(2L, allocator.getStatistics().getRecycled());
+
+        allocator.allocate(32).release();
+        assertEquals(2L, allocator.getStatistics().getPassedThrough());
+        assertEquals(1, delegate.getUnreleased());
+    }
+
+    @Test
+    public void testClear() {
+        final TestBufferAllocator delegate = new TestBufferAllocator(16);
+        final PoolingBufferAllocator allocator = new PoolingBufferAllocator(delegate, 4, 1);
+        final Buffer first = allocator.allocate();
+        final Buffer second = allocator.allocate();
+        first.release();
+        second.release();
+        assertEquals(2, delegate.getUnreleased());
+        allocator.clear();
+        assertEquals(0, delegate.getUnreleased());
+        assertEquals(0, allocator.getStatistics().getPooledInFreeList());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PoolingBufferAllocator(new TestBufferAllocator(16), -1));
+        assertThrows(IllegalArgumentException.class, () -> new PoolingBufferAllocator(new TestBufferAllocator(16), 1, -1));
+    }
+}
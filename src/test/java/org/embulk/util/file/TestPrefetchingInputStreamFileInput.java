@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.embulk.spi.Buffer;
+import org.junit.jupiter.api.Test;
+
+public class TestPrefetchingInputStreamFileInput {
+    @Test
+    public void testReadAll() {
+        final TestBufferAllocator allocator = new TestBufferAllocator(3);
+        final InputStream first = new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7 });
+        final InputStream second = new ByteArrayInputStream(new byte[] { 8 });
+        try (final PrefetchingInputStreamFileInput input = new PrefetchingInputStreamFileInput(
+                allocator, new InputStreamFileInput.IteratorProvider(Arrays.asList(first, second)), 2, 1024L)) {
+            assertTrue(input.nextFile());
+            assertEquals(7, countBytes(input));
+            assertTrue(input.nextFile());
+            assertEquals(1, countBytes(input));
+            assertFalse(input.nextFile());
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testFailureIsThrownUntilClose() {
+        final TestBufferAllocator allocator = new TestBufferAllocator(4);
+        final InputStream failing = new SequenceInputStream(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 }), new FailingInputStream());
+        final InputStream next = new ByteArrayInputStream(new byte[] { 5 });
+        try (final PrefetchingInputStreamFileInput input = new PrefetchingInputStreamFileInput(
+                allocator, new InputStreamFileInput.IteratorProvider(Arrays.asList(failing, next)), 2, 1024L)) {
+            assertTrue(input.nextFile());
+            assertEquals(4, TestBufferAllocator.toBytesAndRelease(input.poll()).length);
+            assertThrows(UncheckedIOException.class, input::poll);
+
+            // A retried poll() must not return null as if the file were complete.
+            assertThrows(UncheckedIOException.class, input::poll);
+            assertThrows(UncheckedIOException.class, input::nextFile);
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testCloseUnblocksStalledRead() throws Exception {
+        final TestBufferAllocator allocator = new TestBufferAllocator(4);
+        final StalledInputStream stalled = new StalledInputStream(true);
+        final PrefetchingInputStreamFileInput input = new PrefetchingInputStreamFileInput(
+                allocator, new InputStreamFileInput.IteratorProvider(Arrays.asList(stalled)), 2, 1024L);
+        assertTrue(input.nextFile());
+        assertTrue(stalled.reading.await(10, TimeUnit.SECONDS));
+        input.close();
+        assertTrue(stalled.closed);
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testNextFileAfterReadIgnoringClose() throws Exception {
+        final TestBufferAllocator allocator = new TestBufferAllocator(4);
+        final StalledInputStream stalled = new StalledInputStream(false);
+        final InputStream next = new ByteArrayInputStream(new byte[] { 1, 2 });
+        try (final PrefetchingInputStreamFileInput input = new PrefetchingInputStreamFileInput(
+                allocator, new InputStreamFileInput.IteratorProvider(Arrays.asList(stalled, next)), 2, 1024L)) {
+            assertTrue(input.nextFile());
+            assertTrue(stalled.reading.await(10, TimeUnit.SECONDS));
+
+            // The stalled reader is left behind, and the next file is read on a new thread.
+            assertTrue(input.nextFile());
+            assertEquals(2, countBytes(input));
+            assertTrue(stalled.closed);
+        }
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    private static int countBytes(final PrefetchingInputStreamFileInput input) {
+        int count = 0;
+        while (true) {
+            final Buffer buffer = input.poll();
+            if (buffer == null) {
+                return count;
+            }
+            count += TestBufferAllocator.toBytesAndRelease(buffer).length;
+        }
+    }
+
+    // Blocks in read() until closed, or until interrupted if it does not unblock by closing.
+    private static class StalledInputStream extends InputStream {
+        StalledInputStream(final boolean unblockedByClose) {
+            this.unblockedByClose = unblockedByClose;
+            this.reading = new CountDownLatch(1);
+            this.unblocked = new CountDownLatch(1);
+            this.closed = false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            this.reading.countDown();
+            try {
+                this.unblocked.await();
+            } catch (final InterruptedException ex) {
+                throw new InterruptedIOException();
+            }
+            throw new IOException("Stream closed.");
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+            if (this.unblockedByClose) {
+                this.unblocked.countDown();
+            }
+        }
+
+        private volatile boolean closed;
+
+        private final boolean unblockedByClose;
+        private final CountDownLatch reading;
+        private final CountDownLatch unblocked;
+    }
+
+    private static class FailingInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            throw new IOException("Failed intentionally.");
+        }
+    }
+}
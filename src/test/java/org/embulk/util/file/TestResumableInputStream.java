@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class TestResumableInputStream {
+    @Test
+    public void testResumedAtOffset() throws IOException {
+        final byte[] source = new byte[] { 1, 2, 3, 4, 5 };
+        final AtomicInteger opens = new AtomicInteger(0);
+        final ResumableInputStream.Reopener reopener = (offset, cause) -> {
+            final InputStream in = new ByteArrayInputStream(source, (int) offset, source.length - (int) offset);
+            return opens.getAndIncrement() == 0 ? new FailingInputStream(in) : in;
+        };
+        try (final ResumableInputStream in = new ResumableInputStream(reopener, new BackoffRetryPolicy(0L, 0L, 3))) {
+            assertEquals(1, in.read());
+            assertEquals(2, in.read());
+            assertEquals(3, in.read());
+            assertEquals(4, in.read());
+            assertEquals(5, in.read());
+            assertEquals(-1, in.read());
+            assertEquals(1L, in.getReopenCount());
+        }
+    }
+
+    @Test
+    public void testFirstOpenIsRetried() throws IOException {
+        final AtomicInteger opens = new AtomicInteger(0);
+        final ResumableInputStream.Reopener reopener = (offset, cause) -> {
+            if (opens.getAndIncrement() == 0) {
+                throw new IOException("Failed intentionally.");
+            }
+            return new ByteArrayInputStream(new byte[] { 1, 2 }, (int) offset, 2 - (int) offset);
+        };
+        try (final ResumableInputStream in = new ResumableInputStream(reopener, new BackoffRetryPolicy(0L, 0L, 3))) {
+            assertEquals(1, in.read());
+            assertEquals(2, in.read());
+            assertEquals(-1, in.read());
+            assertEquals(2, opens.get());
+            assertEquals(1L, in.getFailureCount());
+        }
+    }
+
+    @Test
+    public void testStalledReadsAbortedWhileAnotherCloseBlocks() throws Exception {
+        final CountDownLatch releaseStuck = new CountDownLatch(1);
+        final ResumableInputStream stuck = new ResumableInputStream(
+                new StalledInputStream(releaseStuck), (offset, cause) -> new ByteArrayInputStream(new byte[0]), 50L, TimeUnit.MILLISECONDS);
+        final Thread stuckReader = new Thread(() -> {
+            try {
+                stuck.read();
+            } catch (final IOException ex) {
+                // Not to be checked.
+            }
+        });
+        stuckReader.setDaemon(true);
+        stuckReader.start();
+        try {
+            Thread.sleep(200L);  // The stuck stream is being aborted, and its close() blocks.
+
+            final byte[] source = new byte[] { 7, 8 };
+            try (final ResumableInputStream in = new ResumableInputStream(
+                    new StalledInputStream(null), (offset, cause) -> new ByteArrayInputStream(source, (int) offset, 2 - (int) offset),
+                    50L, TimeUnit.MILLISECONDS)) {
+                assertEquals(1L, in.skip(1L));  // A stalled skip is aborted, and retried as a stalled read is.
+                assertEquals(1L, in.getReopenCount());
+                assertEquals(8, in.read());
+                assertEquals(-1, in.read());
+            }
+        } finally {
+            releaseStuck.countDown();
+        }
+    }
+
+    private static class FailingInputStream extends InputStream {
+        FailingInputStream(final InputStream in) {
+            this.in = in;
+            this.readOnce = false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.readOnce) {
+                throw new IOException("Failed intentionally.");
+            }
+            this.readOnce = true;
+            return this.in.read();
+        }
+
+        private boolean readOnce;
+
+        private final InputStream in;
+    }
+
+    // Blocks in read() and skip() until closed. Its close() blocks until "releaseClose" if given.
+    private static class StalledInputStream extends InputStream {
+        StalledInputStream(final CountDownLatch releaseClose) {
+            this.releaseClose = releaseClose;
+            this.closed = new CountDownLatch(1);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                this.closed.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return -1;  // Some streams return -1 when closed while reading.
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            this.read();
+            return 0L;
+        }
+
+        @Override
+        public void close() {
+            if (this.releaseClose != null) {
+                try {
+                    this.releaseClose.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            this.closed.countDown();
+        }
+
+        private final CountDownLatch releaseClose;
+        private final CountDownLatch closed;
+    }
+}
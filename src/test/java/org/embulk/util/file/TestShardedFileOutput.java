@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class TestShardedFileOutput {
+    @Test
+    public void testPerFileByDefaultKeepsFilesWhole() {
+        final RecordingProvider first = new RecordingProvider(-1);
+        final RecordingProvider second = new RecordingProvider(-1);
+        try (final ShardedFileOutput output = new ShardedFileOutput(Arrays.asList(first, second))) {
+            for (int file = 0; file < 3; file++) {
+                output.nextFile();
+                for (int i = 0; i < 4; i++) {
+                    output.add(TestBufferAllocator.wrap(new byte[] { (byte) ('a' + file) }));
+                }
+            }
+            output.finish();
+        }
+        assertEquals(Arrays.asList("aaaa", "cccc"), first.files);
+        assertEquals(Collections.singletonList("bbbb"), second.files);
+        assertEquals(1, first.finished);
+        assertEquals(1, second.finished);
+    }
+
+    @Test
+    public void testFailedNextFileIsNeverFinished() {
+        final RecordingProvider first = new RecordingProvider(-1);
+        final RecordingProvider second = new RecordingProvider(1);
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final ShardedFileOutput output = new ShardedFileOutput(Arrays.asList(first, second), ShardedFileOutput.Selection.ROUND_ROBIN);
+        output.nextFile();
+        output.add(allocator.allocate());
+        final RuntimeException failure = assertThrows(UncheckedIOException.class, () -> {
+            // WriteBehindFileOutput opens the file on its writer thread. The failure is thrown from a following call.
+            for (int i = 0; i < 100; i++) {
+                output.nextFile();
+                Thread.sleep(10L);
+            }
+        });
+        assertSame(failure, assertThrows(UncheckedIOException.class, () -> output.add(allocator.allocate())));
+        assertSame(failure, assertThrows(UncheckedIOException.class, output::finish));
+        output.close();
+        assertEquals(0, first.finished);
+        assertEquals(0, second.finished);
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    private static class RecordingProvider implements OutputStreamFileOutput.Provider {
+        RecordingProvider(final int failingFile) {
+            this.failingFile = failingFile;
+            this.files = Collections.synchronizedList(new ArrayList<>());
+        }
+
+        @Override
+        public OutputStream openNext() throws IOException {
+            if (this.opened++ == this.failingFile) {
+                throw new IOException("Failed intentionally.");
+            }
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    RecordingProvider.this.files.add(this.toString());
+                }
+            };
+        }
+
+        @Override
+        public void finish() {
+            this.finished++;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private volatile int opened;
+        private volatile int finished;
+
+        private final int failingFile;
+        private final List<String> files;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.util.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.FileOutput;
+import org.junit.jupiter.api.Test;
+
+public class TestWriteBehindFileOutput {
+    @Test
+    public void testWriteInOrder() {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final OutputStreamFileOutput.Provider provider = new OutputStreamFileOutput.Provider() {
+            @Override
+            public OutputStream openNext() {
+                return written;
+            }
+
+            @Override
+            public void finish() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (final WriteBehindFileOutput output = new WriteBehindFileOutput(provider, 2)) {
+            output.nextFile();
+            for (int i = 0; i < 100; i++) {
+                output.add(TestBufferAllocator.wrap(new byte[] { (byte) i }));
+            }
+            output.finish();
+        }
+        final byte[] expected = new byte[100];
+        for (int i = 0; i < 100; i++) {
+            expected[i] = (byte) i;
+        }
+        assertArrayEquals(expected, written.toByteArray());
+    }
+
+    @Test
+    public void testFailureIsThrownFromCaller() {
+        final FileOutput failing = new BlockingFileOutput(null) {
+            @Override
+            public void add(final Buffer buffer) {
+                buffer.release();
+                throw new IllegalStateException("Failed intentionally.");
+            }
+        };
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final WriteBehindFileOutput output = new WriteBehindFileOutput(failing, 1);
+        output.nextFile();
+        output.add(allocator.allocate());
+        assertThrows(IllegalStateException.class, output::finish);
+        output.close();
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    @Test
+    public void testInterruptedCloseWaitsForWriter() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final BlockingFileOutput delegate = new BlockingFileOutput(release);
+        final TestBufferAllocator allocator = new TestBufferAllocator(8);
+        final WriteBehindFileOutput output = new WriteBehindFileOutput(delegate, 1);
+        output.nextFile();
+        output.add(allocator.allocate());
+        assertTrue(delegate.adding.await(10, TimeUnit.SECONDS));
+        output.add(allocator.allocate());  // Fills the queue so that close() blocks in queuing STOP.
+
+        final AtomicReference<Throwable> thrown = new AtomicReference<>();
+        final Thread closing = new Thread(() -> {
+            try {
+                output.close();
+            } catch (final Throwable ex) {
+                thrown.set(ex);
+            }
+        });
+        closing.start();
+        Thread.sleep(100L);
+        closing.interrupt();
+        Thread.sleep(100L);
+        assertTrue(closing.isAlive());  // Still waiting for the writer in the middle of add().
+        assertEquals(Collections.emptyList(), delegate.events);
+
+        release.countDown();
+        closing.join(10000L);
+        assertTrue(thrown.get() instanceof UncheckedIOException);
+        assertEquals(Arrays.asList("add", "close"), delegate.events);
+        assertEquals(0, allocator.getUnreleased());
+    }
+
+    private static class BlockingFileOutput implements FileOutput {
+        BlockingFileOutput(final CountDownLatch release) {
+            this.release = release;
+            this.adding = new CountDownLatch(1);
+            this.events = Collections.synchronizedList(new ArrayList<>());
+        }
+
+        @Override
+        public void nextFile() {
+        }
+
+        @Override
+        public void add(final Buffer buffer) {
+            this.adding.countDown();
+            while (true) {
+                try {
+                    this.release.await();
+                    break;
+                } catch (final InterruptedException ex) {
+                    // Ignoring interruption as some FileOutputs do.
+                }
+            }
+            buffer.release();
+            this.events.add("add");
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public void close() {
+            this.events.add("close");
+        }
+
+        private final CountDownLatch release;
+        private final CountDownLatch adding;
+        private final List<String> events;
+    }
+}